@@ -0,0 +1,59 @@
+package com.mathassistant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The /calculate arithmetic (op string dispatch + operation) over mixed operands,
+ * against the columnar BatchCalculator used by /calculate/batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculateBenchmark {
+
+    private static final int COUNT = 1024;
+    private static final String[] OPS = {"add", "sub", "mul", "div"};
+
+    private final double[] a = new double[COUNT];
+    private final double[] b = new double[COUNT];
+    private final String[] op = new String[COUNT];
+    private byte[] codes;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7);
+        for (int i = 0; i < COUNT; i++) {
+            a[i] = rnd.nextDouble() * 1000;
+            b[i] = rnd.nextInt(10) == 0 ? 0 : rnd.nextDouble() * 1000;
+            // copy so the switch hashes a fresh String like a request parameter would
+            op[i] = new String(OPS[rnd.nextInt(OPS.length)]);
+        }
+        codes = BatchCalculator.opCodes(op);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double apply() {
+        double sum = 0;
+        for (int i = 0; i < COUNT; i++) sum += MathAssistantWebApplication.apply(a[i], b[i], op[i]);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] batchMixedOps() {
+        return BatchCalculator.apply(a, b, codes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] batchSingleOp() {
+        return BatchCalculator.apply(a, b, BatchCalculator.MUL);
+    }
+}
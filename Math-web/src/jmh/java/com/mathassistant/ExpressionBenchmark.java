@@ -0,0 +1,34 @@
+package com.mathassistant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /calculate/expr: compiling a formula from text against evaluating the compiled
+ * (cached) form with new variable bindings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final String TEXT = "2*(a+b)^3 / sin(x) + max(a, b) - sqrt(abs(x))";
+
+    private final Expression compiled = Expression.compile(TEXT);
+    private final double[] slots = {1.5, 2.5, 0.75};
+
+    @Benchmark
+    public Expression compile() {
+        return Expression.compile(TEXT);
+    }
+
+    @Benchmark
+    public double evaluate() {
+        slots[0] += 1e-9; // new binding each call
+        return compiled.evaluate(slots);
+    }
+}
@@ -0,0 +1,27 @@
+package com.mathassistant;
+
+import com.example.calculator.FibonacciCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FibonacciCalculator.calculateFibonacci across n (arc list with 3 degree sampling).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FibonacciCalculatorBenchmark {
+
+    @Param({"1", "10", "40", "90"})
+    public int n;
+
+    @Benchmark
+    public List<FibonacciCalculator.QuadrantArc> calculateFibonacci() {
+        return FibonacciCalculator.calculateFibonacci(n);
+    }
+}
@@ -0,0 +1,43 @@
+package com.mathassistant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render-path benchmarks for FibonacciCurve: the String generator used by
+ * /api/fibonacci, the byte[] generator used by /fibonacci, and the same with
+ * adaptive sampling (?lod=true).
+ * Run with -prof gc to see allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FibonacciCurveBenchmark {
+
+    @Param({"1", "5", "10", "20", "30", "40"})
+    public int n;
+
+    @Param({"800"})
+    public int size;
+
+    private final FibonacciCurve curve = new FibonacciCurve();
+
+    @Benchmark
+    public String generateSVG() {
+        return curve.generateSVG(n, false, false);
+    }
+
+    @Benchmark
+    public byte[] generateCurve() {
+        return curve.generateCurve(n, size);
+    }
+
+    @Benchmark
+    public byte[] generateCurveLod() {
+        return curve.generateCurve(n, size, SvgProfile.STANDARD, LevelOfDetail.of(LevelOfDetail.DEFAULT_TOLERANCE));
+    }
+}
@@ -0,0 +1,55 @@
+package com.mathassistant;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old per-vertex formatter (String.format("%.3f")) with FixedPointFormat
+ * writing into a byte buffer and into a StringBuilder. Inputs are pixel coordinates in
+ * the range the SVG renderer produces (0..700 with arbitrary fractions).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointFormatBenchmark {
+
+    private static final int COUNT = 1024;
+
+    private final double[] values = new double[COUNT];
+    private final byte[] buf = new byte[COUNT * FixedPointFormat.MAX_FAST_LENGTH];
+    private final StringBuilder sb = new StringBuilder(COUNT * FixedPointFormat.MAX_FAST_LENGTH);
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < COUNT; i++) values[i] = rnd.nextDouble() * 700.0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void stringFormat(Blackhole bh) {
+        for (double v : values) bh.consume(String.format("%.3f", v));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int fixedPointBytes() {
+        int pos = 0;
+        for (double v : values) pos = FixedPointFormat.write(buf, pos, v, 3);
+        return pos;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int fixedPointStringBuilder() {
+        sb.setLength(0);
+        for (double v : values) FixedPointFormat.append(sb, v, 3);
+        return sb.length();
+    }
+}
@@ -0,0 +1,33 @@
+package com.mathassistant;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The /fibonacci-curve form pipeline (FibonacciController.embedForPage): render the
+ * inline fragment, optionally with the base64 data URI for <img>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageEmbedBenchmark {
+
+    @Param({"5", "20", "40"})
+    public int n;
+
+    private final FibonacciCurve curve = new FibonacciCurve();
+
+    @Benchmark
+    public FibonacciController.PageEmbed inline() {
+        return FibonacciController.embedForPage(curve, n, false);
+    }
+
+    @Benchmark
+    public FibonacciController.PageEmbed inlineWithDataUri() {
+        return FibonacciController.embedForPage(curve, n, true);
+    }
+}
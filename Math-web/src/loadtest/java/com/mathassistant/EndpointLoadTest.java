@@ -0,0 +1,107 @@
+package com.mathassistant;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EndpointLoadTest
+ *
+ * Boots the application on a random port and drives the loadtest.mix of requests (see
+ * LoadScenario) from loadtest.clients concurrent clients: loadtest.warmup-seconds whose
+ * results are discarded, then loadtest.duration-seconds of measurement. Prints p50/p99/max
+ * and throughput of served requests per scenario, writes HdrHistogram percentile files
+ * to loadtest.report-dir and fails if
+ *  - a scenario's error rate exceeds loadtest.max-error-rate (429s are admission control
+ *    at work and only reported), or
+ *  - p99 or throughput regressed past the baseline (loadtest.baseline-file) by more than
+ *    loadtest.p99-tolerance / loadtest.throughput-tolerance.
+ *
+ * -Dloadtest.update-baseline=true records the run as the new baseline instead.
+ * The application's own warm-up is off: the warm-up phase here covers it.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = { "warmup.enabled=false", "logging.level.com.mathassistant=WARN" })
+class EndpointLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void mixedLoadStaysWithinBaseline() throws Exception {
+        String mix = System.getProperty("loadtest.mix", LoadScenario.DEFAULT_MIX);
+        int clients = Integer.getInteger("loadtest.clients", 32);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+        int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 20);
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+        double p99Tolerance = Double.parseDouble(System.getProperty("loadtest.p99-tolerance", "0.5"));
+        double throughputTolerance = Double.parseDouble(System.getProperty("loadtest.throughput-tolerance", "0.3"));
+        Path baselineFile = Paths.get(System.getProperty("loadtest.baseline-file", "loadtest-baseline.properties"));
+        Path reportDir = Paths.get(System.getProperty("loadtest.report-dir", "target/loadtest"));
+
+        LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port),
+                LoadScenario.parseMix(mix), clients);
+        generator.run(Duration.ofSeconds(warmupSeconds));
+        Map<LoadScenario, LoadGenerator.Result> results = generator.run(Duration.ofSeconds(durationSeconds));
+
+        report(results, reportDir);
+        List<String> failures = new ArrayList<>();
+        results.forEach((scenario, r) -> {
+            double rate = r.requests() > 0 ? (double) r.errors / r.requests() : 0;
+            if (rate > maxErrorRate) {
+                failures.add(String.format(Locale.ROOT, "%s: %d of %d requests failed", scenario.id, r.errors, r.requests()));
+            }
+        });
+
+        Map<String, String> run = new LinkedHashMap<>();
+        run.put("mix", mix);
+        run.put("clients", Integer.toString(clients));
+        Map<String, Double> measured = LoadBaseline.measure(results);
+        if (Boolean.getBoolean("loadtest.update-baseline")) {
+            LoadBaseline.store(baselineFile, run, measured);
+            System.out.println("Load test: baseline written to " + baselineFile);
+        } else {
+            Properties baseline = LoadBaseline.load(baselineFile);
+            if (baseline.isEmpty()) {
+                System.out.println("Load test: no baseline at " + baselineFile + ", nothing to compare");
+            } else if (!LoadBaseline.sameRun(baseline, run)) {
+                System.out.println("Load test: baseline was recorded with a different mix or client count, not compared");
+            } else {
+                failures.addAll(LoadBaseline.regressions(baseline, measured, p99Tolerance, throughputTolerance));
+            }
+        }
+        assertTrue(failures.isEmpty(), "Load test regressed:\n  " + String.join("\n  ", failures));
+    }
+
+    // summary table on stdout, full percentile distribution per scenario in reportDir
+    private static void report(Map<LoadScenario, LoadGenerator.Result> results, Path reportDir) throws IOException {
+        Files.createDirectories(reportDir);
+        System.out.printf(Locale.ROOT, "%-16s %9s %8s %8s %10s %10s %10s %10s%n",
+                "scenario", "requests", "429", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<LoadScenario, LoadGenerator.Result> e : results.entrySet()) {
+            LoadGenerator.Result r = e.getValue();
+            System.out.printf(Locale.ROOT, "%-16s %9d %8d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                    e.getKey().id, r.requests(), r.rejected, r.errors, r.throughput(),
+                    r.latency.getValueAtPercentile(50) / 1000.0, r.p99Millis(), r.latency.getMaxValue() / 1000.0);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve(e.getKey().id + ".hgrm")))) {
+                r.latency.outputPercentileDistribution(out, 1000.0); // microseconds -> ms
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mathassistant;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * LoadBaseline
+ *
+ * Stored p99 latency (ms) and throughput (served requests/s) per scenario, plus the
+ * total throughput of the mix, as a properties file:
+ *
+ *   run.mix=calculate=4,...       run.clients=32
+ *   calculate.p99-ms=12.3
+ *   calculate.throughput=850.0
+ *   total.throughput=2100.0
+ *
+ * Numbers are only comparable for the same run.* settings (see sameRun). A run regresses
+ * when a p99 grows by more than p99Tolerance or a throughput drops by more than
+ * throughputTolerance (fractions of the baseline). Scenarios without a baseline are
+ * reported but never fail. The numbers belong to the machine that recorded them:
+ * regenerate the file on the machine that runs the check.
+ */
+final class LoadBaseline {
+
+    static final String TOTAL = "total";
+    static final String RUN = "run.";
+
+    private LoadBaseline() {
+    }
+
+    /** Measured values of a run, in baseline-file form. */
+    static Map<String, Double> measure(Map<LoadScenario, LoadGenerator.Result> results) {
+        Map<String, Double> values = new TreeMap<>();
+        double total = 0;
+        for (Map.Entry<LoadScenario, LoadGenerator.Result> e : results.entrySet()) {
+            values.put(e.getKey().id + ".p99-ms", round(e.getValue().p99Millis()));
+            values.put(e.getKey().id + ".throughput", round(e.getValue().throughput()));
+            total += e.getValue().throughput();
+        }
+        values.put(TOTAL + ".throughput", round(total));
+        return values;
+    }
+
+    static Properties load(Path file) throws IOException {
+        Properties baseline = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                baseline.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    /** True if the baseline was recorded with the given run.* settings. */
+    static boolean sameRun(Properties baseline, Map<String, String> run) {
+        for (Map.Entry<String, String> e : run.entrySet()) {
+            if (!e.getValue().equals(baseline.getProperty(RUN + e.getKey()))) return false;
+        }
+        return true;
+    }
+
+    /** One line per value that regressed past its tolerance; empty if none did. */
+    static List<String> regressions(Properties baseline, Map<String, Double> measured,
+                                    double p99Tolerance, double throughputTolerance) {
+        List<String> out = new ArrayList<>();
+        for (Map.Entry<String, Double> e : measured.entrySet()) {
+            String stored = baseline.getProperty(e.getKey());
+            if (stored == null) continue;
+            double base = Double.parseDouble(stored.trim());
+            double now = e.getValue();
+            if (e.getKey().endsWith(".p99-ms") && now > base * (1 + p99Tolerance)) {
+                out.add(String.format(Locale.ROOT, "%s: %.2f ms, baseline %.2f ms (+%.0f%% allowed)",
+                        e.getKey(), now, base, p99Tolerance * 100));
+            } else if (e.getKey().endsWith(".throughput") && now < base * (1 - throughputTolerance)) {
+                out.add(String.format(Locale.ROOT, "%s: %.1f/s, baseline %.1f/s (-%.0f%% allowed)",
+                        e.getKey(), now, base, throughputTolerance * 100));
+            }
+        }
+        return out;
+    }
+
+    static void store(Path file, Map<String, String> run, Map<String, Double> measured) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("# Load-test baseline (mvn -Pload-test test -Dloadtest.update-baseline=true)\n");
+            out.write("# p99 latency in ms and throughput in requests/s; machine-specific, regenerate where the check runs\n");
+            for (Map.Entry<String, String> e : run.entrySet()) out.write(RUN + e.getKey() + "=" + e.getValue() + "\n");
+            for (Map.Entry<String, Double> e : measured.entrySet()) {
+                out.write(e.getKey() + "=" + e.getValue() + "\n");
+            }
+        }
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,135 @@
+package com.mathassistant;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadGenerator
+ *
+ * Closed-loop load: each client picks a scenario from the mix, sends it, waits for the
+ * whole body and goes again, with no think time. Every client keeps its own histograms
+ * (microseconds, 3 significant digits), merged when the run ends, so recording never
+ * contends. Latency and throughput cover served (2xx) requests only; 429 answers
+ * (admission control turning work away) are counted as rejected, other statuses and I/O
+ * failures as errors, so shedding load never passes for speed. Clients run on virtual
+ * threads when the JVM has them (21+), like BatchRenderer, else on platform threads.
+ */
+public final class LoadGenerator {
+
+    // longest latency the histograms track; slower responses are clamped to it
+    private static final long MAX_LATENCY_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final URI base;
+    private final List<LoadScenario> mix;
+    private final int clients;
+    private final HttpClient http;
+
+    public LoadGenerator(URI base, List<LoadScenario> mix, int clients) {
+        this.base = base;
+        this.mix = mix;
+        this.clients = clients;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /** Latencies, request, rejection and error counts of one scenario over one run. */
+    public static final class Result {
+        final Histogram latency = new Histogram(MAX_LATENCY_MICROS, 3);
+        long rejected;
+        long errors;
+        double seconds;
+
+        /** Served (2xx) requests. */
+        long served() {
+            return latency.getTotalCount();
+        }
+
+        long requests() {
+            return served() + rejected + errors;
+        }
+
+        /** Served requests per second. */
+        double throughput() {
+            return seconds > 0 ? served() / seconds : 0;
+        }
+
+        double p99Millis() {
+            return latency.getValueAtPercentile(99) / 1000.0;
+        }
+
+        void add(Result other) {
+            latency.add(other.latency);
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+    }
+
+    /** Drive the mix for the given time and return per-scenario results. */
+    public Map<LoadScenario, Result> run(Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+        List<Future<Map<LoadScenario, Result>>> running = new ArrayList<>(clients);
+        ExecutorService executor = newClientExecutor();
+        try {
+            for (int i = 0; i < clients; i++) running.add(executor.submit(() -> client(deadline)));
+            Map<LoadScenario, Result> total = new EnumMap<>(LoadScenario.class);
+            for (Future<Map<LoadScenario, Result>> f : running) {
+                f.get().forEach((s, r) -> total.computeIfAbsent(s, k -> new Result()).add(r));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            total.values().forEach(r -> r.seconds = seconds);
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<LoadScenario, Result> client(long deadline) throws InterruptedException {
+        Map<LoadScenario, Result> results = new EnumMap<>(LoadScenario.class);
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            LoadScenario scenario = mix.get(rnd.nextInt(mix.size()));
+            HttpRequest request = scenario.request(base, rnd);
+            Result result = results.computeIfAbsent(scenario, k -> new Result());
+            long t0 = System.nanoTime();
+            int status;
+            try {
+                status = http.send(request, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+            } catch (IOException e) {
+                status = 0;
+            }
+            long micros = (System.nanoTime() - t0) / 1000;
+            if (status / 100 == 2) result.latency.recordValue(Math.min(Math.max(1, micros), MAX_LATENCY_MICROS));
+            else if (status == 429) result.rejected++;
+            else result.errors++;
+        }
+        return results;
+    }
+
+    private ExecutorService newClientExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(clients);
+        }
+    }
+}
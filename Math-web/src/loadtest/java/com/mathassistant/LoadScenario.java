@@ -0,0 +1,101 @@
+package com.mathassistant;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * LoadScenario
+ *
+ * One kind of request the load test can send. Parameters are drawn per request so a run
+ * touches the whole n range (render cache hits after the first pass, as in production):
+ *  - calculate            POST /calculate?a=&b=&op=
+ *  - api-fibonacci        GET  /api/fibonacci?n=          (cached SVG)
+ *  - fibonacci-svg        GET  /fibonacci?format=svg&n=
+ *  - fibonacci-png        GET  /fibonacci?format=png&n=&size=
+ *  - fibonacci-curve      POST /fibonacci-curve n=         (form post, full index page)
+ *
+ * A mix is "name=weight,...", e.g. "calculate=4,fibonacci-png=1".
+ */
+public enum LoadScenario {
+
+    CALCULATE("calculate") {
+        @Override
+        HttpRequest request(URI base, ThreadLocalRandom rnd) {
+            String[] ops = { "add", "sub", "mul", "div" };
+            String query = "a=" + rnd.nextInt(1000) + "&b=" + rnd.nextInt(1, 1000) + "&op=" + ops[rnd.nextInt(ops.length)];
+            return HttpRequest.newBuilder(base.resolve("/calculate?" + query))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+        }
+    },
+    API_FIBONACCI("api-fibonacci") {
+        @Override
+        HttpRequest request(URI base, ThreadLocalRandom rnd) {
+            return HttpRequest.newBuilder(base.resolve("/api/fibonacci?n=" + n(rnd))).GET().build();
+        }
+    },
+    FIBONACCI_SVG("fibonacci-svg") {
+        @Override
+        HttpRequest request(URI base, ThreadLocalRandom rnd) {
+            return HttpRequest.newBuilder(base.resolve("/fibonacci?format=svg&n=" + n(rnd))).GET().build();
+        }
+    },
+    FIBONACCI_PNG("fibonacci-png") {
+        @Override
+        HttpRequest request(URI base, ThreadLocalRandom rnd) {
+            int[] sizes = { 300, 600, 800 };
+            return HttpRequest.newBuilder(base.resolve("/fibonacci?format=png&n=" + n(rnd) + "&size=" + sizes[rnd.nextInt(sizes.length)]))
+                    .GET().build();
+        }
+    },
+    FIBONACCI_CURVE("fibonacci-curve") {
+        @Override
+        HttpRequest request(URI base, ThreadLocalRandom rnd) {
+            return HttpRequest.newBuilder(base.resolve("/fibonacci-curve"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("n=" + n(rnd) + "&option=fib&embed=inline")).build();
+        }
+    };
+
+    /** Default mix: mostly cheap calls, some renders, a few full page posts. */
+    public static final String DEFAULT_MIX = "calculate=4,api-fibonacci=3,fibonacci-svg=1,fibonacci-png=1,fibonacci-curve=1";
+
+    final String id;
+
+    LoadScenario(String id) {
+        this.id = id;
+    }
+
+    abstract HttpRequest request(URI base, ThreadLocalRandom rnd);
+
+    private static int n(ThreadLocalRandom rnd) {
+        return rnd.nextInt(FibonacciCurve.MIN_N, FibonacciCurve.MAX_N + 1);
+    }
+
+    public static LoadScenario byId(String id) {
+        for (LoadScenario s : values()) {
+            if (s.id.equals(id.trim().toLowerCase(Locale.ROOT))) return s;
+        }
+        throw new IllegalArgumentException("unknown scenario '" + id + "'");
+    }
+
+    /**
+     * Weighted mix: each scenario appears weight times, so a uniform pick from the
+     * result follows the weights.
+     */
+    public static List<LoadScenario> parseMix(String mix) {
+        List<LoadScenario> picks = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.split("=");
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (weight < 0) throw new IllegalArgumentException("negative weight in '" + part + "'");
+            LoadScenario s = byId(kv[0]);
+            for (int i = 0; i < weight; i++) picks.add(s);
+        }
+        if (picks.isEmpty()) throw new IllegalArgumentException("empty mix '" + mix + "'");
+        return picks;
+    }
+}
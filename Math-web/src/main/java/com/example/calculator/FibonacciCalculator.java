@@ -1,73 +1,59 @@
 package com.example.calculator;
 
+import com.mathassistant.FibonacciNumbers;
+import com.mathassistant.SpiralGeometry;
+import com.mathassistant.SpiralGeometryStore;
+
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class FibonacciCalculator {
 
+    // sampling density for each quarter-arc (higher = smoother)
+    private static final double STEP_DEG = 3.0; // 3° steps yields smooth curves with reasonable performance
+    private static final int STEPS = (int) Math.round(90.0 / STEP_DEG);
+
+    /** Largest n: F(1477) overflows a double, so the geometry past it would be NaN. */
+    public static final int MAX_N = 1476;
+
+    // shared spiral, extended on demand; larger n are computed directly
+    private static final SpiralGeometryStore ARCS = new SpiralGeometryStore(STEPS, 0);
+
     // Class to store Arc details
     public static class QuadrantArc {
-        public long radius;
-        public List<Double> X = new ArrayList<>();
-        public List<Double> Y = new ArrayList<>();
+        public BigInteger radius; // exact, also past F(92) where long would overflow
+        public double[] X;
+        public double[] Y;
 
-        public QuadrantArc(long radius) {
+        public QuadrantArc(BigInteger radius) {
             this.radius = radius;
         }
     }
 
     public static List<QuadrantArc> calculateFibonacci(int n) {
-        // ensure non-negative
+        // ensure 0 <= n <= MAX_N
         if (n < 0) n = 0;
+        if (n > MAX_N) n = MAX_N;
 
-        List<QuadrantArc> allArcs = new ArrayList<>();
+        List<QuadrantArc> allArcs = new ArrayList<>(n);
         if (n == 0) return allArcs;
 
-        // Fibonacci Sequence (Using Long to support larger n)
-        List<Long> fib = new ArrayList<>();
-        fib.add(1L);
-        if (n > 1) fib.add(1L);
-
-        for (int i = 2; i < n; i++) {
-            long nextFib = fib.get(i - 1) + fib.get(i - 2);
-            fib.add(nextFib);
-        }
-
-        double currentX = 0.0;
-        double currentY = 0.0;
+        // Fibonacci Sequence F(1)..F(n): exact values for the radius labels
+        FibonacciNumbers numbers = FibonacciNumbers.shared();
+        BigInteger[] fib = numbers.range(1, n);
 
-        // sampling density for each quarter-arc (higher = smoother)
-        final double STEP_DEG = 3.0; // 3° steps yields smooth curves with reasonable performance
+        // Arcs Calculation: start angle rotates by 90° each arc (0,90,180,270,...),
+        // each arc continues from the end of the previous one
+        SpiralGeometry g = n <= SpiralGeometryStore.MAX_ARCS
+                ? ARCS.arcs(n)
+                : SpiralGeometry.compute(numbers.radii(n), n, STEPS, 0, null);
 
-        // Arcs Calculation
         for (int i = 0; i < n; i++) {
-            long r = fib.get(i);
-            QuadrantArc arc = new QuadrantArc(r);
-
-            // start angle rotates by 90° each arc: 0,90,180,270,...
-            double startAngleDeg = (i % 4) * 90.0;
-            double endAngleDeg = startAngleDeg + 90.0;
-
-            // Center calculation so arc continues from current point:
-            // start point S = current point; center C = S - r * u(startAngle)
-            double startRad = Math.toRadians(startAngleDeg);
-            double cx = currentX - (r * Math.cos(startRad));
-            double cy = currentY - (r * Math.sin(startRad));
-
-            // Generate sampled points from start to end (inclusive)
-            for (double a = startAngleDeg; a <= endAngleDeg + 1e-9; a += STEP_DEG) {
-                double rad = Math.toRadians(a);
-                double px = cx + r * Math.cos(rad);
-                double py = cy + r * Math.sin(rad);
-
-                arc.X.add(px);
-                arc.Y.add(py);
-            }
-
-            // update current point to arc end (last sampled)
-            currentX = arc.X.get(arc.X.size() - 1);
-            currentY = arc.Y.get(arc.Y.size() - 1);
-
+            QuadrantArc arc = new QuadrantArc(fib[i]);
+            arc.X = Arrays.copyOfRange(g.xs(), g.arcStart(i), g.arcEnd(i));
+            arc.Y = Arrays.copyOfRange(g.ys(), g.arcStart(i), g.arcEnd(i));
             allArcs.add(arc);
         }
 
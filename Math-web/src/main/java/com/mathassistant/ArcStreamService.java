@@ -0,0 +1,214 @@
+package com.mathassistant;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ArcStreamService
+ *
+ * Progressive spiral streams over Server-Sent Events (GET /api/fibonacci/arcs). A stream
+ * sends the spiral arc by arc as compact JSON frames, straight from the shared arc store
+ * behind FibonacciCurve.geometry, so the first arc goes out as soon as the connection is
+ * open whatever n is:
+ *
+ *   event: stream   {"id":"3f0c..."}                                   once, on connect
+ *   event: layout   {"n":8,"minX":..,"minY":..,"maxX":..,"maxY":..}   world bounds for n
+ *   event: arc      {"i":0,"r":1.0,"cx":0.0,"cy":1.0,"q":3}           quarter arc i
+ *   event: truncate {"n":5}                                             drop arcs >= n
+ *   event: done     {"n":8}                                             all arcs of n sent
+ *
+ * An arc spans the quarter turn from angle q * 90 degrees around (cx, cy), counter-clockwise
+ * in world coordinates (+y up). Arcs never depend on n, so after POST
+ * /api/fibonacci/arcs/{id}?n= the stream sends a new layout and then only the missing arcs
+ * (or a truncate); frames already drawn stay valid. The change is picked up between frames.
+ *
+ * Each stream has its own sender thread and frames are written synchronously, so a slow
+ * client holds back only its own stream: the socket is the backpressure. Streams are
+ * bounded by render.stream.max-streams and end after render.stream.timeout-ms.
+ */
+@Component
+public class ArcStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArcStreamService.class);
+
+    /** Largest pause between arcs a client may ask for. */
+    public static final int MAX_INTERVAL_MS = 1000;
+
+    // comment line sent while idle so proxies keep the connection open
+    private static final long HEARTBEAT_MS = 15_000;
+
+    private final int maxStreams;
+    private final long timeoutMillis;
+    private final RenderMetrics metrics;
+    private final Map<String, ArcStream> streams = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor senders;
+
+    public ArcStreamService(@Value("${render.stream.max-streams:64}") int maxStreams,
+                            @Value("${render.stream.timeout-ms:600000}") long timeoutMillis,
+                            RenderMetrics metrics) {
+        this.maxStreams = Math.max(1, maxStreams);
+        this.timeoutMillis = timeoutMillis;
+        this.metrics = metrics;
+        AtomicInteger threads = new AtomicInteger();
+        // no queue: a stream either gets a sender right away or is refused
+        this.senders = new ThreadPoolExecutor(0, this.maxStreams, 30, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "arc-stream-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        metrics.bindStreams(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Open a stream drawing n arcs, pausing intervalMillis between arcs.
+     * @throws RenderScheduler.RenderRejectedException if max-streams are already open
+     */
+    public SseEmitter open(int n, int intervalMillis) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        ArcStream stream = new ArcStream(UUID.randomUUID().toString(), emitter, n,
+                Math.max(0, Math.min(intervalMillis, MAX_INTERVAL_MS)));
+        streams.put(stream.id, stream);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(e -> stream.close());
+        try {
+            senders.execute(stream::run);
+            metrics.admission("stream", "admitted");
+        } catch (RejectedExecutionException e) {
+            streams.remove(stream.id);
+            metrics.admission("stream", "rejected");
+            throw new RenderScheduler.RenderRejectedException("Too many open arc streams (max " + maxStreams + ")", 5);
+        }
+        return emitter;
+    }
+
+    /** Point an open stream at a new n; false if no such stream is open. */
+    public boolean change(String id, int n) {
+        ArcStream stream = streams.get(id);
+        if (stream == null) return false;
+        stream.retarget(n);
+        return true;
+    }
+
+    public int openStreams() {
+        return streams.size();
+    }
+
+    // -----------------------
+    // One connection
+    // -----------------------
+    private final class ArcStream {
+        final String id;
+        final SseEmitter emitter;
+        final int intervalMillis;
+
+        private int target;        // guarded by this
+        private boolean closed;    // guarded by this
+        private Thread sender;     // guarded by this
+
+        ArcStream(String id, SseEmitter emitter, int n, int intervalMillis) {
+            this.id = id;
+            this.emitter = emitter;
+            this.target = n;
+            this.intervalMillis = intervalMillis;
+        }
+
+        synchronized void retarget(int n) {
+            target = n;
+            notifyAll();
+        }
+
+        void close() {
+            Thread t;
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                t = sender;
+                notifyAll();
+            }
+            streams.remove(id);
+            // wake a sender blocked in a paced sleep; writes in progress fail on their own
+            if (t != null && t != Thread.currentThread()) t.interrupt();
+        }
+
+        void run() {
+            synchronized (this) {
+                if (closed) return;
+                sender = Thread.currentThread();
+            }
+            int sent = 0;          // arcs the client has
+            int drawn = -1;        // n the last layout was sent for
+            try {
+                send("stream", "{\"id\":\"" + id + "\"}");
+                while (true) {
+                    int n;
+                    synchronized (this) {
+                        // idle until the client changes n
+                        if (!closed && target == drawn) wait(HEARTBEAT_MS);
+                        if (closed) return;
+                        n = target;
+                    }
+                    if (n == drawn) {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                        continue;
+                    }
+                    drawn = n;
+                    SpiralGeometry g = FibonacciCurve.geometry(n, LevelOfDetail.OFF, 0);
+                    send("layout", "{\"n\":" + n + ",\"minX\":" + g.minX() + ",\"minY\":" + g.minY()
+                            + ",\"maxX\":" + g.maxX() + ",\"maxY\":" + g.maxY() + "}");
+                    if (sent > n) {
+                        send("truncate", "{\"n\":" + n + "}");
+                        sent = n;
+                    }
+                    while (sent < n && !changed(n)) {
+                        if (intervalMillis > 0 && sent > 0) Thread.sleep(intervalMillis);
+                        send("arc", "{\"i\":" + sent + ",\"r\":" + g.radius(sent) + ",\"cx\":" + g.centerX(sent)
+                                + ",\"cy\":" + g.centerY(sent) + ",\"q\":" + g.startQuadrant(sent) + "}");
+                        sent++;
+                    }
+                    if (sent == n) send("done", "{\"n\":" + n + "}");
+                }
+            } catch (InterruptedException e) {
+                // closed while pacing or idle
+            } catch (IOException | IllegalStateException e) {
+                // client went away; the emitter callbacks close the stream
+                logger.debug("Arc stream {} ended: {}", id, e.toString());
+            } finally {
+                synchronized (this) {
+                    sender = null;
+                }
+                emitter.complete();
+                close();
+                Thread.interrupted(); // don't leak the interrupt into the pooled thread
+            }
+        }
+
+        private synchronized boolean changed(int n) {
+            return closed || target != n;
+        }
+
+        private void send(String event, String json) throws IOException {
+            emitter.send(SseEmitter.event().name(event).data(json));
+            metrics.streamFrame(event);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mathassistant;
+
+/**
+ * BatchCalculator
+ *
+ * Columnar version of /calculate: evaluates r[i] = a[i] (op) b[i] over primitive arrays.
+ * Semantics match MathAssistantWebApplication.apply for every row:
+ *  - add, sub, mul, div
+ *  - division by zero yields NaN
+ *  - unknown ops yield 0
+ *
+ * Ops are resolved to byte codes once, and consecutive rows with the same op are
+ * evaluated as one run in a branch-free counted loop, which C2 compiles to SIMD code.
+ */
+public final class BatchCalculator {
+
+    public static final byte ADD = 0;
+    public static final byte SUB = 1;
+    public static final byte MUL = 2;
+    public static final byte DIV = 3;
+    public static final byte UNKNOWN = 4;
+
+    private BatchCalculator() {}
+
+    /** Byte code for an op name as accepted by /calculate. */
+    public static byte opCode(String op) {
+        if (op == null) return UNKNOWN;
+        switch (op) {
+            case "add": return ADD;
+            case "sub": return SUB;
+            case "mul": return MUL;
+            case "div": return DIV;
+            default:    return UNKNOWN;
+        }
+    }
+
+    public static byte[] opCodes(String[] ops) {
+        byte[] codes = new byte[ops.length];
+        for (int i = 0; i < ops.length; i++) codes[i] = opCode(ops[i]);
+        return codes;
+    }
+
+    /** Apply one op to every row. */
+    public static double[] apply(double[] a, double[] b, byte op) {
+        checkLengths(a, b, a.length);
+        double[] r = new double[a.length];
+        run(a, b, r, 0, a.length, op);
+        return r;
+    }
+
+    /** Apply a per-row op, one tight loop per run of equal ops. */
+    public static double[] apply(double[] a, double[] b, byte[] ops) {
+        checkLengths(a, b, ops.length);
+        double[] r = new double[a.length];
+        int i = 0;
+        while (i < ops.length) {
+            byte op = ops[i];
+            int end = i + 1;
+            while (end < ops.length && ops[end] == op) end++;
+            run(a, b, r, i, end, op);
+            i = end;
+        }
+        return r;
+    }
+
+    private static void run(double[] a, double[] b, double[] r, int from, int to, byte op) {
+        switch (op) {
+            case ADD:
+                for (int i = from; i < to; i++) r[i] = a[i] + b[i];
+                break;
+            case SUB:
+                for (int i = from; i < to; i++) r[i] = a[i] - b[i];
+                break;
+            case MUL:
+                for (int i = from; i < to; i++) r[i] = a[i] * b[i];
+                break;
+            case DIV:
+                for (int i = from; i < to; i++) {
+                    double d = b[i];
+                    r[i] = d != 0 ? a[i] / d : Double.NaN;
+                }
+                break;
+            default:
+                // new double[] is already zero-filled
+                break;
+        }
+    }
+
+    private static void checkLengths(double[] a, double[] b, int rows) {
+        if (a.length != rows || b.length != rows) {
+            throw new IllegalArgumentException("Column lengths differ: a=" + a.length + ", b=" + b.length
+                    + (rows != a.length ? ", ops=" + rows : ""));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.mathassistant;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * BatchRenderer
+ *
+ * Renders a list of curve specs concurrently and streams them into a ZIP archive in
+ * completion order, so the first finished document goes out while others are still
+ * rendering. Results go through the shared RenderCache under the same keys as /api/fibonacci
+ * (size does not change the SVG, out-of-range n all share the message document), and misses
+ * are admitted by the RenderScheduler like any other render; a rejected spec becomes an
+ * error entry.
+ *
+ * Tasks run on virtual threads when the JVM supports them (Java 21+), otherwise on a
+ * ForkJoinPool bounded to the number of cores.
+ */
+@Component
+public class BatchRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRenderer.class);
+
+    /** Largest number of specs accepted in one batch. */
+    public static final int MAX_SPECS = 100;
+
+    private final RenderCache renderCache;
+    private final RenderMetrics metrics;
+    private final RenderScheduler scheduler;
+    private final FibonacciCurve generator = new FibonacciCurve();
+    private final ExecutorService executor = createExecutor();
+
+    public BatchRenderer(RenderCache renderCache, RenderMetrics metrics, RenderScheduler scheduler) {
+        this.renderCache = renderCache;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+    }
+
+    /** One requested document; missing fields fall back to the /fibonacci defaults. */
+    public static class Spec {
+        public int n = 6;
+        public int size = 800;
+        public boolean unitsMode;
+        public boolean generatorMode;
+
+        // entries are prefixed with the spec's position so repeated specs don't collide
+        String fileName(int index) {
+            return String.format("%03d", index) + "-fibonacci-n" + n + "-s" + size
+                    + (unitsMode ? "-units" : "") + (generatorMode ? "-generator" : "") + ".svg";
+        }
+    }
+
+    private static final class Rendered {
+        final int index;
+        final Spec spec;
+        final byte[] body;
+        final String error;
+
+        Rendered(int index, Spec spec, byte[] body, String error) {
+            this.index = index;
+            this.spec = spec;
+            this.body = body;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Render all specs in parallel and write one ZIP entry per spec to out as each one
+     * completes. Failed specs produce a "*.error.txt" entry instead of aborting the batch.
+     */
+    public void writeZip(List<Spec> specs, OutputStream out) throws IOException {
+        CompletionService<Rendered> done = new ExecutorCompletionService<>(executor);
+        for (int i = 0; i < specs.size(); i++) {
+            Spec spec = specs.get(i);
+            int index = i;
+            spec.size = Math.max(100, Math.min(spec.size, 2000)); // same clamp as /fibonacci
+            done.submit(() -> render(index, spec));
+        }
+
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < specs.size(); i++) {
+                Rendered r = take(done);
+                if (r.error == null) {
+                    zip.putNextEntry(new ZipEntry(r.spec.fileName(r.index)));
+                    zip.write(r.body);
+                } else {
+                    zip.putNextEntry(new ZipEntry(r.spec.fileName(r.index) + ".error.txt"));
+                    zip.write(r.error.getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+                zip.flush(); // push finished entries to the client right away
+            }
+        }
+    }
+
+    private Rendered render(int index, Spec spec) {
+        // every out-of-range n renders the same message document: one cache entry for all
+        int keyN = FibonacciCurve.inRange(spec.n) ? spec.n : 0;
+        try {
+            RenderCache.Entry doc = renderCache.getOrRender(
+                    new RenderCache.Key(RenderCache.Key.SVG, keyN, 0, spec.unitsMode, spec.generatorMode,
+                            SvgProfile.STANDARD.id()),
+                    () -> scheduler.run(RenderScheduler.svgCost(keyN),
+                            () -> metrics.timeRender("batch", RenderCache.Key.SVG, keyN,
+                                    () -> generator.generateSVGBytes(keyN, spec.unitsMode, spec.generatorMode))));
+            return new Rendered(index, spec, doc.body(), null);
+        } catch (RenderScheduler.RenderRejectedException ex) {
+            return new Rendered(index, spec, null, ex.getMessage() + ", retry after " + ex.retryAfterSeconds() + "s");
+        } catch (Exception ex) {
+            logger.warn("Batch render failed for n={} size={}", spec.n, spec.size, ex);
+            metrics.error("batch");
+            return new Rendered(index, spec, null, "Error generating curve: " + ex.getMessage());
+        }
+    }
+
+    private static Rendered take(CompletionService<Rendered> done) throws IOException {
+        try {
+            Future<Rendered> f = done.take();
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch render interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch render failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Java 21+: one virtual thread per task; Java 17: work-stealing pool sized to the cores
+    private static ExecutorService createExecutor() {
+        try {
+            Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService vt = (ExecutorService) m.invoke(null);
+            logger.info("Batch rendering on virtual threads");
+            return vt;
+        } catch (ReflectiveOperationException e) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            logger.info("Virtual threads unavailable, batch rendering on a ForkJoinPool with parallelism {}", cores);
+            return new ForkJoinPool(cores);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.mathassistant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/*
+  Bulk calculator endpoints, next to the single-operation POST /calculate:
+  - POST /calculate/batch (application/json): columnar {"a":[..],"b":[..],"op":"add"} or "ops":[..] per row
+  - POST /calculate/batch (application/octet-stream): little-endian doubles a[0..n) then b[0..n), op as ?op=
+  - POST /calculate/expr: {"expression":"2*(a+b)^3/sin(x)","variables":{..}} or, in bulk,
+    {"expression":..,"columns":["a","b","x"],"rows":[[..],..]}; compiled forms come from ExpressionCache
+  Results are streamed back in the request's format.
+*/
+@Controller
+public class CalculatorController {
+
+    private static final MediaType OCTET_STREAM = MediaType.APPLICATION_OCTET_STREAM;
+    // doubles written per chunk when streaming binary results
+    private static final int CHUNK = 8192;
+
+    private final RenderMetrics metrics;
+    private final ExpressionCache expressions;
+    private final int maxRows;
+
+    public CalculatorController(RenderMetrics metrics, ExpressionCache expressions,
+                                @Value("${calculate.batch.max-rows:4194304}") int maxRows) {
+        this.metrics = metrics;
+        this.expressions = expressions;
+        this.maxRows = maxRows;
+    }
+
+    /** JSON batch request; either op (applies to every row) or ops (one per row) must be set. */
+    public static class BatchRequest {
+        public double[] a;
+        public double[] b;
+        public String op;
+        public String[] ops;
+    }
+
+    @PostMapping(value = "/calculate/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchJson(@RequestBody BatchRequest req) {
+        if (req == null || req.a == null || req.b == null) return badRequest("Both 'a' and 'b' columns are required");
+        if (req.op == null && req.ops == null) return badRequest("Either 'op' or 'ops' is required");
+        if (req.a.length > maxRows) return badRequest("Batch too large (max " + maxRows + " rows)");
+        if (req.a.length != req.b.length || (req.ops != null && req.ops.length != req.a.length)) {
+            return badRequest("Columns must have the same length");
+        }
+
+        double[] results = metrics.timeCalculateBatch("json", req.a.length, () -> req.ops != null
+                ? BatchCalculator.apply(req.a, req.b, BatchCalculator.opCodes(req.ops))
+                : BatchCalculator.apply(req.a, req.b, BatchCalculator.opCode(req.op)));
+
+        return jsonResults(results);
+    }
+
+    @PostMapping(value = "/calculate/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> batchBinary(@RequestParam String op, @RequestBody byte[] body) {
+        if (body.length % (2 * Double.BYTES) != 0) {
+            return badRequest("Body must hold two equal columns of little-endian doubles");
+        }
+        int rows = body.length / (2 * Double.BYTES);
+        if (rows > maxRows) return badRequest("Batch too large (max " + maxRows + " rows)");
+
+        double[] a = new double[rows];
+        double[] b = new double[rows];
+        ByteBuffer in = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        in.asDoubleBuffer().get(a);
+        in.position(rows * Double.BYTES);
+        in.asDoubleBuffer().get(b);
+
+        double[] results = metrics.timeCalculateBatch("binary", rows,
+                () -> BatchCalculator.apply(a, b, BatchCalculator.opCode(op)));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(OCTET_STREAM);
+        headers.setContentLength((long) rows * Double.BYTES);
+        return new ResponseEntity<>(out -> {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < results.length; i += CHUNK) {
+                int len = Math.min(CHUNK, results.length - i);
+                chunk.clear();
+                chunk.asDoubleBuffer().put(results, i, len);
+                out.write(chunk.array(), 0, len * Double.BYTES);
+            }
+        }, headers, HttpStatus.OK);
+    }
+
+    /** Expression request: variables for one evaluation, or columns + rows for many. */
+    public static class ExpressionRequest {
+        public String expression;
+        public Map<String, Double> variables;
+        public List<String> columns;
+        public double[][] rows;
+    }
+
+    @PostMapping(value = "/calculate/expr", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> expression(@RequestBody ExpressionRequest req) {
+        if (req == null || req.expression == null) return badRequest("'expression' is required");
+        try {
+            Expression expr = expressions.get(req.expression);
+            if (req.rows == null) {
+                double result = metrics.timeExpression("single", () -> expr.evaluate(req.variables));
+                return json(w -> {
+                    w.write("{\"result\":");
+                    writeNumber(w, result);
+                    w.write('}');
+                });
+            }
+            if (req.rows.length > maxRows) return badRequest("Too many rows (max " + maxRows + ")");
+            int[] columnIndex = expr.columnIndex(req.columns != null ? req.columns : List.of());
+            double[] results = metrics.timeExpression("rows", () -> expr.evaluateRows(req.rows, columnIndex));
+            return jsonResults(results);
+        } catch (IllegalArgumentException ex) {
+            return badRequest(ex.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(Writer w) throws IOException;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> json(JsonBody body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new ResponseEntity<>(out -> {
+            Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CHUNK);
+            body.write(w);
+            w.flush();
+        }, headers, HttpStatus.OK);
+    }
+
+    // {"rows":N,"results":[...]}
+    private static ResponseEntity<StreamingResponseBody> jsonResults(double[] results) {
+        return json(w -> {
+            w.write("{\"rows\":");
+            w.write(Integer.toString(results.length));
+            w.write(",\"results\":[");
+            for (int i = 0; i < results.length; i++) {
+                if (i > 0) w.write(',');
+                writeNumber(w, results[i]);
+            }
+            w.write("]}");
+        });
+    }
+
+    // non-finite values are quoted, as Jackson does for the single /calculate
+    private static void writeNumber(Writer w, double r) throws IOException {
+        if (Double.isFinite(r)) w.write(Double.toString(r));
+        else w.write("\"" + r + "\"");
+    }
+
+    private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return new ResponseEntity<>(out -> out.write(message.getBytes(StandardCharsets.UTF_8)), headers, HttpStatus.BAD_REQUEST);
+    }
+}
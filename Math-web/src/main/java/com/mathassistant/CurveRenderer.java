@@ -0,0 +1,30 @@
+package com.mathassistant;
+
+import org.springframework.http.MediaType;
+
+/**
+ * CurveRenderer
+ *
+ * One output format of the Fibonacci curve behind GET /fibonacci. FibonacciRenderRouter
+ * picks an implementation by the format parameter or the Accept header, looks its
+ * document up in RenderCache under key(request), and calls render on a miss. Renderers
+ * are Spring beans: adding a format means adding a component.
+ */
+public interface CurveRenderer {
+
+    /** Format name, used for ?format=, cache keys and metric tags (svg, png, json). */
+    String format();
+
+    MediaType mediaType();
+
+    /** Display size used when the request has no size parameter. */
+    int defaultSize();
+
+    /** Cache key for the request: every input that changes this format's output. */
+    RenderCache.Key key(RenderRequest request);
+
+    /** Admission cost of a cache miss, in RenderScheduler units. */
+    long cost(RenderRequest request);
+
+    byte[] render(RenderRequest request);
+}
@@ -0,0 +1,359 @@
+package com.mathassistant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Expression
+ *
+ * Arithmetic expression compiled once into a tree of closures, then evaluated any number
+ * of times against new variable bindings without touching the text again.
+ *
+ *  - numbers, variables, + - * / % ^ (right associative), unary minus, parentheses
+ *  - functions: sin cos tan asin acos atan sinh cosh tanh sqrt cbrt abs exp ln log log10
+ *               floor ceil round sign, and min max pow atan2 hypot with two arguments
+ *  - constants: pi, e
+ *
+ * Variables are resolved to slots at compile time (variables() gives their order), so
+ * evaluation is a plain array read. Sub-trees without variables are folded to constants.
+ * Division by zero yields NaN, as in /calculate.
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class Expression {
+
+    /** Longest accepted expression text. */
+    public static final int MAX_LENGTH = 4096;
+
+    // nesting limit for parentheses, unary signs and calls, keeps the recursion off the stack limit
+    private static final int MAX_DEPTH = 200;
+
+    @FunctionalInterface
+    interface Node {
+        double eval(double[] slots);
+    }
+
+    private final String text;
+    private final Node root;
+    private final List<String> variables;
+
+    private Expression(String text, Node root, List<String> variables) {
+        this.text = text;
+        this.root = root;
+        this.variables = variables;
+    }
+
+    /** Parse and compile text, throwing IllegalArgumentException with the offending position on errors. */
+    public static Expression compile(String text) {
+        if (text == null || text.isBlank()) throw new IllegalArgumentException("Expression is empty");
+        if (text.length() > MAX_LENGTH) throw new IllegalArgumentException("Expression too long (max " + MAX_LENGTH + " chars)");
+        Parser p = new Parser(text);
+        Node root = p.parseAll();
+        return new Expression(text, root, Collections.unmodifiableList(p.variables));
+    }
+
+    public String text() { return text; }
+
+    /** Variable names in slot order. */
+    public List<String> variables() { return variables; }
+
+    /** Evaluate with slots[i] bound to variables().get(i). */
+    public double evaluate(double[] slots) {
+        if (slots.length < variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable values, got " + slots.length);
+        }
+        return root.eval(slots);
+    }
+
+    /** Evaluate with variables bound by name; every variable must be present. */
+    public double evaluate(Map<String, Double> bindings) {
+        return evaluate(slots(bindings));
+    }
+
+    /** Evaluate over rows: rows[r][columnIndex[i]] is bound to variable i. */
+    public double[] evaluateRows(double[][] rows, int[] columnIndex) {
+        double[] out = new double[rows.length];
+        double[] slots = new double[columnIndex.length];
+        for (int r = 0; r < rows.length; r++) {
+            double[] row = rows[r];
+            for (int i = 0; i < slots.length; i++) {
+                int c = columnIndex[i];
+                if (c >= row.length) throw new IllegalArgumentException("Row " + r + " has " + row.length + " values");
+                slots[i] = row[c];
+            }
+            out[r] = root.eval(slots);
+        }
+        return out;
+    }
+
+    /** Slot array for the given bindings. */
+    public double[] slots(Map<String, Double> bindings) {
+        double[] slots = new double[variables.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Double v = bindings != null ? bindings.get(variables.get(i)) : null;
+            if (v == null) throw new IllegalArgumentException("Missing value for variable '" + variables.get(i) + "'");
+            slots[i] = v;
+        }
+        return slots;
+    }
+
+    /**
+     * Map from slot index to column index for rows laid out as columns; throws if a
+     * variable has no column.
+     */
+    public int[] columnIndex(List<String> columns) {
+        int[] index = new int[variables.size()];
+        for (int i = 0; i < index.length; i++) {
+            index[i] = columns.indexOf(variables.get(i));
+            if (index[i] < 0) throw new IllegalArgumentException("Missing column for variable '" + variables.get(i) + "'");
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    // -----------------------
+    // Recursive-descent parser
+    // -----------------------
+    private static final class Parser {
+        private final String s;
+        private int pos;
+        private int depth;
+        final List<String> variables = new ArrayList<>();
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Node parseAll() {
+            Node n = expression();
+            skipSpaces();
+            if (pos < s.length()) throw error("Unexpected '" + s.charAt(pos) + "'");
+            return n;
+        }
+
+        // expression := term (('+' | '-') term)*
+        private Node expression() {
+            Node left = term();
+            while (true) {
+                if (accept('+')) left = fold(left, term(), '+');
+                else if (accept('-')) left = fold(left, term(), '-');
+                else return left;
+            }
+        }
+
+        // term := unary (('*' | '/' | '%') unary)*
+        private Node term() {
+            Node left = unary();
+            while (true) {
+                if (accept('*')) left = fold(left, unary(), '*');
+                else if (accept('/')) left = fold(left, unary(), '/');
+                else if (accept('%')) left = fold(left, unary(), '%');
+                else return left;
+            }
+        }
+
+        // unary := ('-' | '+') unary | power      (so -2^2 = -(2^2))
+        private Node unary() {
+            if (++depth > MAX_DEPTH) throw error("Expression nested too deeply");
+            try {
+                return signed();
+            } finally {
+                depth--;
+            }
+        }
+
+        private Node signed() {
+            if (accept('-')) {
+                Node operand = unary();
+                if (operand instanceof Constant) return new Constant(-((Constant) operand).value);
+                return slots -> -operand.eval(slots);
+            }
+            if (accept('+')) return unary();
+            return power();
+        }
+
+        // power := primary ('^' unary)?          (right associative)
+        private Node power() {
+            Node base = primary();
+            if (accept('^')) return fold(base, unary(), '^');
+            return base;
+        }
+
+        // primary := number | name | name '(' args ')' | '(' expression ')'
+        private Node primary() {
+            skipSpaces();
+            if (pos >= s.length()) throw error("Unexpected end of expression");
+            char c = s.charAt(pos);
+            if (c == '(') {
+                pos++;
+                Node inner = expression();
+                expect(')');
+                return inner;
+            }
+            if (Character.isDigit(c) || c == '.') return number();
+            if (Character.isLetter(c) || c == '_') {
+                String name = identifier();
+                if (accept('(')) return call(name);
+                return variableOrConstant(name);
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private Node number() {
+            int start = pos;
+            while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')) pos++;
+            if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+                int mark = pos++;
+                if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) pos++;
+                if (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                    while (pos < s.length() && Character.isDigit(s.charAt(pos))) pos++;
+                } else {
+                    pos = mark; // no exponent digits: the 'e' is left for the caller to reject
+                }
+            }
+            try {
+                return new Constant(Double.parseDouble(s.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("Invalid number");
+            }
+        }
+
+        private String identifier() {
+            int start = pos;
+            while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_')) pos++;
+            return s.substring(start, pos);
+        }
+
+        private Node variableOrConstant(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "pi": return new Constant(Math.PI);
+                case "e":  return new Constant(Math.E);
+                default:
+                    int slot = variables.indexOf(name);
+                    if (slot < 0) {
+                        slot = variables.size();
+                        variables.add(name);
+                    }
+                    int index = slot;
+                    return slots -> slots[index];
+            }
+        }
+
+        private Node call(String name) {
+            int at = pos;
+            List<Node> args = new ArrayList<>(2);
+            if (!accept(')')) {
+                do {
+                    args.add(expression());
+                } while (accept(','));
+                expect(')');
+            }
+            Node fn = function(name.toLowerCase(Locale.ROOT), args, at);
+            boolean constant = true;
+            for (Node a : args) constant &= a instanceof Constant;
+            return constant ? new Constant(fn.eval(null)) : fn;
+        }
+
+        private Node function(String name, List<Node> args, int at) {
+            if (args.size() == 1) {
+                Node x = args.get(0);
+                switch (name) {
+                    case "sin":   return slots -> Math.sin(x.eval(slots));
+                    case "cos":   return slots -> Math.cos(x.eval(slots));
+                    case "tan":   return slots -> Math.tan(x.eval(slots));
+                    case "asin":  return slots -> Math.asin(x.eval(slots));
+                    case "acos":  return slots -> Math.acos(x.eval(slots));
+                    case "atan":  return slots -> Math.atan(x.eval(slots));
+                    case "sinh":  return slots -> Math.sinh(x.eval(slots));
+                    case "cosh":  return slots -> Math.cosh(x.eval(slots));
+                    case "tanh":  return slots -> Math.tanh(x.eval(slots));
+                    case "sqrt":  return slots -> Math.sqrt(x.eval(slots));
+                    case "cbrt":  return slots -> Math.cbrt(x.eval(slots));
+                    case "abs":   return slots -> Math.abs(x.eval(slots));
+                    case "exp":   return slots -> Math.exp(x.eval(slots));
+                    case "ln":    return slots -> Math.log(x.eval(slots));
+                    case "log":
+                    case "log10": return slots -> Math.log10(x.eval(slots));
+                    case "floor": return slots -> Math.floor(x.eval(slots));
+                    case "ceil":  return slots -> Math.ceil(x.eval(slots));
+                    case "round": return slots -> Math.rint(x.eval(slots));
+                    case "sign":  return slots -> Math.signum(x.eval(slots));
+                    default: break;
+                }
+            } else if (args.size() == 2) {
+                Node x = args.get(0), y = args.get(1);
+                switch (name) {
+                    case "min":   return slots -> Math.min(x.eval(slots), y.eval(slots));
+                    case "max":   return slots -> Math.max(x.eval(slots), y.eval(slots));
+                    case "pow":   return slots -> Math.pow(x.eval(slots), y.eval(slots));
+                    case "atan2": return slots -> Math.atan2(x.eval(slots), y.eval(slots));
+                    case "hypot": return slots -> Math.hypot(x.eval(slots), y.eval(slots));
+                    default: break;
+                }
+            }
+            pos = at;
+            throw error("Unknown function " + name + "/" + args.size());
+        }
+
+        // binary node, folded to a constant when both sides are constants
+        private Node fold(Node l, Node r, char op) {
+            Node n;
+            switch (op) {
+                case '+': n = slots -> l.eval(slots) + r.eval(slots); break;
+                case '-': n = slots -> l.eval(slots) - r.eval(slots); break;
+                case '*': n = slots -> l.eval(slots) * r.eval(slots); break;
+                case '/': n = slots -> divide(l.eval(slots), r.eval(slots)); break;
+                case '%': n = slots -> l.eval(slots) % r.eval(slots); break;
+                case '^': n = slots -> Math.pow(l.eval(slots), r.eval(slots)); break;
+                default: throw new IllegalStateException("op " + op);
+            }
+            return l instanceof Constant && r instanceof Constant ? new Constant(n.eval(null)) : n;
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error("Expected '" + c + "'");
+        }
+
+        private void skipSpaces() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos);
+        }
+    }
+
+    private static double divide(double a, double b) {
+        return b != 0 ? a / b : Double.NaN;
+    }
+
+    private static final class Constant implements Node {
+        final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double eval(double[] slots) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.mathassistant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+
+/**
+ * ExpressionCache
+ *
+ * Bounded LRU of compiled expressions keyed by their text, so evaluating a known formula
+ * with new variable values skips parsing entirely. Texts that fail to compile are not
+ * cached; the parse error is rethrown to the caller every time.
+ */
+@Component
+public class ExpressionCache {
+
+    private final int maxEntries;
+    private final RenderMetrics metrics;
+
+    // access-ordered map gives us LRU iteration order for eviction
+    private final LinkedHashMap<String, Expression> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    public ExpressionCache(@Value("${calculate.expr.cache-size:1024}") int maxEntries, RenderMetrics metrics) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.metrics = metrics;
+    }
+
+    /** Compiled form of text, compiling (outside the lock) and caching it on a miss. */
+    public Expression get(String text) {
+        Expression hit;
+        synchronized (this) {
+            hit = entries.get(text);
+        }
+        if (hit != null) {
+            metrics.expressionCache("hit");
+            return hit;
+        }
+        metrics.expressionCache("miss");
+
+        Expression compiled = Expression.compile(text);
+        synchronized (this) {
+            entries.put(text, compiled);
+            if (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+        return compiled;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
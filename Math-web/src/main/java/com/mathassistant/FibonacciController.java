@@ -1,21 +1,70 @@
 package com.mathassistant;
 
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.*;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /*
   Replaced @RestController-only class with an MVC @Controller that:
   - serves the index view (GET /)
-  - handles the form POST /fibonacci-curve and returns the index view with model.svg
+  - handles the form POST /fibonacci-curve and returns the index view with model.svg (inline fragment)
   - preserves the REST endpoint /api/fibonacci that returns raw SVG (ResponseBody)
+  - offers ?stream=true variants that write the SVG directly to the response stream
+  - streams the spiral arc by arc over SSE at /api/fibonacci/arcs (ArcStreamService)
+  - streams poster-sized PNGs drawn in parallel tiles at /fibonacci/poster (PosterRenderer)
+  - serves /api/fibonacci from RenderCache with strong ETags and If-None-Match -> 304
+  GET /fibonacci itself (svg, svgz, png, json) is FibonacciRenderRouter.
 */
 @Controller
 public class FibonacciController {
 
+    private static final Logger logger = LoggerFactory.getLogger(FibonacciController.class);
+
+    // rendered documents never change for a given key, so let clients keep them for a year
+    static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final MediaType SVG_TYPE = MediaType.valueOf("image/svg+xml");
+
+    // display size range accepted by the image endpoints (px)
+    static final int MIN_SIZE = 100;
+    static final int MAX_SIZE = 2000;
+
     private final FibonacciCurve generator = new FibonacciCurve();
+    private final FibonacciNumbers numbers = FibonacciNumbers.shared();
+    private final RenderCache renderCache;
+    private final BatchRenderer batchRenderer;
+    private final RenderMetrics metrics;
+    private final RenderScheduler scheduler;
+    private final ArcStreamService arcStreams;
+    private final PosterRenderer posters;
+
+    public FibonacciController(RenderCache renderCache, BatchRenderer batchRenderer, RenderMetrics metrics,
+                               RenderScheduler scheduler, ArcStreamService arcStreams, PosterRenderer posters) {
+        this.renderCache = renderCache;
+        this.batchRenderer = batchRenderer;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.arcStreams = arcStreams;
+        this.posters = posters;
+    }
 
     // Serve the index page (your form). Keeps previous behaviour: index expects model attributes.
     @GetMapping({"/", "/index"})
@@ -31,50 +80,265 @@ public class FibonacciController {
     // REST endpoint: return raw SVG (for direct fetch). Kept as /api/fibonacci for compatibility.
     @GetMapping(value = "/api/fibonacci", produces = "image/svg+xml")
     @ResponseBody
-    public ResponseEntity<String> getFibonacci(
-            @RequestParam(value = "n", defaultValue = "6") int n
+    public ResponseEntity<byte[]> getFibonacci(
+            @RequestParam(value = "n", defaultValue = "6") int n,
+            @RequestParam(value = "profile", required = false) String profileName,
+            @RequestParam(value = "precision", required = false) Integer precision,
+            @RequestParam(value = "lod", required = false) Boolean lodEnabled,
+            @RequestParam(value = "tolerance", required = false) Double tolerance,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
         try {
-            String svg = generator.generateSvg(n);
+            // size does not apply to the fixed 700px document served here
+            SvgProfile profile = SvgProfile.parse(profileName, precision);
+            LevelOfDetail lod = LevelOfDetail.parse(lodEnabled, tolerance);
+            // every out-of-range n renders the same message document: one cache entry for all
+            int keyN = FibonacciCurve.inRange(n) ? n : 0;
+            RenderCache.Entry doc = renderCache.getOrRender(
+                    new RenderCache.Key(RenderCache.Key.SVG, keyN, 0, false, false, lod.qualify(profile.id())),
+                    () -> scheduler.run(RenderScheduler.svgCost(keyN),
+                            () -> metrics.timeRender("generateSVG", RenderCache.Key.SVG, n,
+                                    () -> generator.generateSVGBytes(keyN, false, false, profile, lod, 700))));
+            return cachedResponse(doc, SVG_TYPE, ifNoneMatch, acceptEncoding);
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.valueOf("image/svg+xml"));
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
+        } catch (RenderScheduler.RenderRejectedException ex) {
+            return tooManyRequests(ex);
+        } catch (Exception ex) {
+            logger.error("SVG render failed for n={}", n, ex);
+            metrics.error("api-fibonacci");
+            return errorBytes("Error generating SVG: " + ex.getMessage());
+        }
+    }
 
-            return new ResponseEntity<>(svg, headers, HttpStatus.OK);
+    // Exact Fibonacci numbers: F(k) for ?k=, or F(from)..F(to) for ?from=&to=.
+    // Values are decimal strings so JSON clients do not lose precision.
+    @GetMapping(value = "/api/fibonacci/numbers", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getFibonacciNumbers(
+            @RequestParam(value = "k", required = false) Integer k,
+            @RequestParam(value = "from", required = false) Integer from,
+            @RequestParam(value = "to", required = false) Integer to
+    ) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        int max = FibonacciNumbers.MAX_INDEX;
+        if (k != null) {
+            if (k < 0 || k > max) return badRequest("k must be between 0 and " + max);
+            body.put("k", k);
+            body.put("value", numbers.get(k).toString());
+        } else if (from != null && to != null) {
+            if (from < 0 || to > max || to < from) return badRequest("require 0 <= from <= to <= " + max);
+            if (to - from + 1 > FibonacciNumbers.MAX_RANGE) return badRequest("at most " + FibonacciNumbers.MAX_RANGE + " terms per request");
+            BigInteger[] values = numbers.range(from, to);
+            List<String> out = new ArrayList<>(values.length);
+            for (BigInteger v : values) out.add(v.toString());
+            body.put("from", from);
+            body.put("to", to);
+            body.put("values", out);
+        } else {
+            return badRequest("pass either k or from and to");
+        }
+        return ResponseEntity.ok(body);
+    }
 
-        } catch (Exception ex) {
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return ResponseEntity.badRequest().body(body);
+    }
+
+    // Batch render: POST a JSON list of specs [{"n":8,"size":800}, ...] and receive a ZIP
+    // that is streamed entry by entry as the documents finish rendering in parallel.
+    @PostMapping(value = "/api/fibonacci/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = "application/zip")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> batchFibonacci(@RequestBody List<BatchRenderer.Spec> specs) {
+        if (specs == null || specs.isEmpty() || specs.size() > BatchRenderer.MAX_SPECS) {
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.TEXT_PLAIN);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .headers(headers)
-                    .body("Error generating SVG: " + ex.getMessage());
+            String msg = "Batch must contain 1.." + BatchRenderer.MAX_SPECS + " specs";
+            return new ResponseEntity<>(out -> out.write(msg.getBytes(StandardCharsets.UTF_8)), headers, HttpStatus.BAD_REQUEST);
         }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("application/zip"));
+        headers.setContentDisposition(ContentDisposition.attachment().filename("fibonacci-batch.zip").build());
+        return new ResponseEntity<>(out -> batchRenderer.writeZip(specs, out), headers, HttpStatus.OK);
+    }
+
+    // Streaming variants (?stream=true): the SVG is written straight into the response
+    // through a fixed-size buffer instead of being materialized (and cached) in memory.
+    @GetMapping(value = {"/api/fibonacci", "/fibonacci"}, params = "stream=true", produces = "image/svg+xml")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> streamFibonacci(
+            @RequestParam(value = "n", required = false, defaultValue = "6") int n
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf("image/svg+xml"));
+        headers.setCacheControl(IMMUTABLE_CACHE_CONTROL);
+
+        Timer timer = metrics.renderTimer("writeSVG", RenderCache.Key.SVG, n);
+        StreamingResponseBody body = out -> {
+            long start = System.nanoTime();
+            try {
+                generator.writeSVG(n, false, false, out);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        };
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
-    // --------- NEW: image endpoint used by fibonacci.html <img src="/fibonacci?..."> ----------
-    // Serve generated curve bytes (SVG) so <img src="/fibonacci?n=6&size=800"> works unchanged.
-    @GetMapping(value = "/fibonacci", produces = "image/svg+xml")
+    // Poster-sized PNG (up to 16384 px): drawn in parallel tiles and encoded row by row
+    // straight into the response; never cached, at most render.poster.max-concurrent at once.
+    @GetMapping(value = "/fibonacci/poster", produces = MediaType.IMAGE_PNG_VALUE)
     @ResponseBody
-    public ResponseEntity<byte[]> getFibonacciImage(
-            @RequestParam(value = "n", required = false, defaultValue = "6") int n,
-            @RequestParam(value = "size", required = false, defaultValue = "800") int size
+    public ResponseEntity<StreamingResponseBody> poster(
+            @RequestParam(value = "n", required = false, defaultValue = "8") int n,
+            @RequestParam(value = "size", required = false, defaultValue = "4096") int size,
+            @RequestParam(value = "sequence", required = false) String sequenceSpec,
+            NativeWebRequest webRequest
     ) {
+        if (!FibonacciCurve.inRange(n)) return plainStream(HttpStatus.BAD_REQUEST, FibonacciCurve.OUT_OF_RANGE_MESSAGE);
+        if (size < MIN_SIZE || size > PosterRenderer.MAX_SIZE) {
+            return plainStream(HttpStatus.BAD_REQUEST, "size must be between " + MIN_SIZE + " and " + PosterRenderer.MAX_SIZE);
+        }
+        LinearRecurrence sequence;
         try {
-            // FibonacciCurve.generateCurve(n,size) returns UTF-8 SVG bytes (backwards-compatible)
-            byte[] svgBytes = generator.generateCurve(n, size);
+            sequence = LinearRecurrence.parse(sequenceSpec);
+            sequence.radii(n); // negative or overflowing terms cannot be drawn
+        } catch (IllegalArgumentException ex) {
+            return plainStream(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.IMAGE_PNG);
+        headers.setCacheControl(IMMUTABLE_CACHE_CONTROL);
+        // last step: the slot reserved here is tied to this request's async lifecycle
+        StreamingResponseBody body = posters.prepare(
+                new RenderRequest(n, size, SvgProfile.STANDARD, LevelOfDetail.OFF, sequence), webRequest);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.valueOf("image/svg+xml"));
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
+    // Progressive stream: the spiral arc by arc as SSE frames (see ArcStreamService);
+    // ?interval= paces the arcs for animation, POST .../arcs/{id}?n= changes n mid-stream.
+    @GetMapping(value = "/api/fibonacci/arcs", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<SseEmitter> streamArcs(
+            @RequestParam(value = "n", required = false, defaultValue = "8") int n,
+            @RequestParam(value = "interval", required = false, defaultValue = "0") int intervalMillis
+    ) {
+        // an event stream has no room for an error body: a bare 400 is all EventSource sees anyway
+        if (!FibonacciCurve.inRange(n)) return ResponseEntity.badRequest().build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noStore());
+        // ask reverse proxies (nginx) not to buffer the frames
+        headers.set("X-Accel-Buffering", "no");
+        return new ResponseEntity<>(arcStreams.open(n, intervalMillis), headers, HttpStatus.OK);
+    }
 
-            return new ResponseEntity<>(svgBytes, headers, HttpStatus.OK);
-        } catch (Exception ex) {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.TEXT_PLAIN);
-            String msg = "Error generating curve: " + ex.getMessage();
-            return new ResponseEntity<>(msg.getBytes(java.nio.charset.StandardCharsets.UTF_8), headers, HttpStatus.INTERNAL_SERVER_ERROR);
+    @PostMapping("/api/fibonacci/arcs/{id}")
+    @ResponseBody
+    public ResponseEntity<byte[]> changeArcStream(@PathVariable("id") String id, @RequestParam("n") int n) {
+        if (!FibonacciCurve.inRange(n)) return plainStatus(HttpStatus.BAD_REQUEST, FibonacciCurve.OUT_OF_RANGE_MESSAGE);
+        if (!arcStreams.change(id, n)) return plainStatus(HttpStatus.NOT_FOUND, "No open arc stream " + id);
+        return ResponseEntity.noContent().build();
+    }
+
+    // local handler wins over GlobalExceptionHandler, which would answer with the index page
+    @ExceptionHandler(RenderScheduler.RenderRejectedException.class)
+    @ResponseBody
+    public ResponseEntity<byte[]> rejected(RenderScheduler.RenderRejectedException ex) {
+        return tooManyRequests(ex);
+    }
+
+    // I/O failures on streamed responses mean the client went away: nothing left to answer
+    @ExceptionHandler(IOException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void clientGone(IOException ex) {
+        logger.debug("Client disconnected: {}", ex.toString());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> plainStream(HttpStatus status, String msg) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        byte[] bytes = msg.getBytes(StandardCharsets.UTF_8);
+        return new ResponseEntity<>(out -> out.write(bytes), headers, status);
+    }
+
+    private static ResponseEntity<byte[]> plainStatus(HttpStatus status, String msg) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return new ResponseEntity<>(msg.getBytes(StandardCharsets.UTF_8), headers, status);
+    }
+
+    // Build the response for a cached document: 304 on ETag match, gzip copy ("-gz" ETag) if the client accepts it.
+    // Documents are content-addressed, so they can be cached as immutable by browsers and proxies.
+    static ResponseEntity<byte[]> cachedResponse(RenderCache.Entry doc, MediaType type, String ifNoneMatch, String acceptEncoding) {
+        return cachedResponse(doc, type, ifNoneMatch, acceptEncoding, java.util.List.of(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    static ResponseEntity<byte[]> cachedResponse(RenderCache.Entry doc, MediaType type, String ifNoneMatch, String acceptEncoding,
+                                                 List<String> vary) {
+        boolean gzip = doc.gzip() != null && acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        // the gzip body is a different representation, so it gets its own strong validator
+        headers.setETag(gzip ? doc.gzipEtag() : doc.etag());
+        headers.setCacheControl(IMMUTABLE_CACHE_CONTROL);
+        headers.setVary(vary);
+
+        if (doc.matches(ifNoneMatch)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+
+        headers.setContentType(type);
+        byte[] body = doc.body();
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = doc.gzip();
+        }
+        headers.setContentLength(body.length);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * True if the Accept-Encoding header allows gzip: an explicit "gzip" / "x-gzip" coding,
+     * or "*", with a non-zero q-value. "gzip;q=0" is an explicit refusal (RFC 9110 12.5.3).
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) return false;
+        double gzipQ = -1, anyQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(java.util.Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim();
+                if (p.startsWith("q=") || p.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(p.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0; // malformed weight: treat the coding as not acceptable
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) gzipQ = Math.max(gzipQ, q);
+            else if (coding.equals("*")) anyQ = q;
         }
+        // an explicit gzip entry wins over the wildcard
+        return gzipQ >= 0 ? gzipQ > 0 : anyQ > 0;
+    }
+
+    static ResponseEntity<byte[]> errorBytes(String msg) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return new ResponseEntity<>(msg.getBytes(StandardCharsets.UTF_8), headers, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // 429 for a render the scheduler could not admit; clients retry after the given delay
+    static ResponseEntity<byte[]> tooManyRequests(RenderScheduler.RenderRejectedException ex) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.retryAfterSeconds()));
+        return new ResponseEntity<>(ex.getMessage().getBytes(StandardCharsets.UTF_8), headers, HttpStatus.TOO_MANY_REQUESTS);
     }
 
     // Web form POST handler: exactly the behaviour your page expects — returns "index" view
@@ -82,6 +346,7 @@ public class FibonacciController {
     @PostMapping("/fibonacci-curve")
     public String drawFibCurve(@RequestParam(value = "n", required = false) String nStr,
                                @RequestParam(value = "option", required = false, defaultValue = "fib") String option,
+                               @RequestParam(value = "embed", required = false, defaultValue = "inline") String embedMode,
                                Model model) {
         String svg = "";
         String svgData = "";
@@ -98,79 +363,77 @@ public class FibonacciController {
                     throw new NumberFormatException("Invalid n format (use numbers only).");
                 }
 
-                if (n < 1) {
-                    error = "n must be at least 1.";
-                } else if (n > 50) {
-                    error = "n too large (max 50).";
+                if (n < FibonacciCurve.MIN_N) {
+                    error = "n must be at least " + FibonacciCurve.MIN_N + ".";
+                } else if (n > FibonacciCurve.MAX_N) {
+                    error = "n too large (max " + FibonacciCurve.MAX_N + ").";
                 } else {
-                    // generate raw svg
-                    svg = generator.generateSvg(n);
-
-                    // SANITIZE for inline embedding: remove XML declaration and DOCTYPE if present
-                    if (svg != null && !svg.isEmpty()) {
-                        try {
-                            svg = svg.replaceFirst("^\\s*<\\?xml[^>]*\\?>\\s*", "");
-                            svg = svg.replaceFirst("^\\s*<!DOCTYPE[^>]*>\\s*", "");
-                            svg = svg.trim();
-
-                            int start = svg.indexOf("<svg");
-                            int end = svg.lastIndexOf("</svg>");
-                            if (start >= 0 && end >= 0 && end > start) {
-                                svg = svg.substring(start, end + "</svg>".length()).trim();
-                            } else if (start >= 0) {
-                                svg = svg.substring(start).trim();
-                            }
-
-                        } catch (Exception ex) {
-                            System.err.println("[FibonacciController] SVG sanitization failed: " + ex.getMessage());
-                            ex.printStackTrace();
-                        }
-
-                        // create base64 data-URI fallback for <img>
-                        try {
-                            byte[] bytes = svg.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-                            String b64 = Base64.getEncoder().encodeToString(bytes);
-                            svgData = "data:image/svg+xml;base64," + b64;
-                        } catch (Exception ex) {
-                            System.err.println("[FibonacciController] SVG data URI creation failed: " + ex.getMessage());
-                        }
-
-                        // NEW: build a URL-encoded data: URI and wrap with an <object> for reliable embedding
-                        try {
-                            // Use UTF-8 percent-encoding for the SVG payload to avoid base64 size & encoding issues
-                            String urlEncoded = java.net.URLEncoder.encode(svg, "UTF-8")
-                                                           .replaceAll("\\+", "%20"); // keep spaces as %20
-                            String dataUri = "data:image/svg+xml;utf8," + urlEncoded;
-                            // object will render the svg document reliably inside the page
-                            String objectEmbed = "<object type='image/svg+xml' data='" + dataUri +
-                                                 "' style='width:100%;height:100%;display:block;border:0'></object>";
-                            svg = objectEmbed;
-                            System.out.println("[FibonacciController] Embedded SVG via <object> dataURI created. length=" + dataUri.length());
-                        } catch (Exception ex) {
-                            System.err.println("[FibonacciController] SVG object-embed creation failed: " + ex.getMessage());
-                            // fallback: keep raw svg in model.svg (we already have svg content)
-                        }
-                    } else {
-                        System.out.println("[FibonacciController] generator returned empty SVG for n=" + n);
-                    }
+                    // inline <svg> fragment; ?embed=datauri adds a base64 data URI for <img>
+                    int terms = n;
+                    boolean dataUri = "datauri".equalsIgnoreCase(embedMode);
+                    PageEmbed embed = metrics.timeRender("drawFibCurve", "embed", n,
+                            () -> embedForPage(generator, terms, dataUri));
+                    svg = embed.svg;
+                    svgData = embed.svgData;
+                    metrics.recordBytes("embed", svg.length() + svgData.length());
+                    logger.debug("Inline SVG fragment created. length={} dataUri={}", svg.length(), svgData.length());
                 }
             }
         } catch (NumberFormatException e) {
             error = "Invalid n format (use numbers only).";
         } catch (Exception e) {
             error = "Unexpected error: " + e.getMessage();
-            System.err.println("Fibonacci error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Fibonacci error: {}", e.getMessage(), e);
+            metrics.error("fibonacci-curve");
         }
 
         model.addAttribute("error", error);
-        model.addAttribute("svg", svg);       // svg now contains <object ...>dataURI</object> (or raw svg if embed failed)
-        model.addAttribute("svgData", svgData); // base64 fallback for <img> if needed
+        model.addAttribute("svg", svg);         // inline <svg> fragment, safe to emit with th:utext
+        model.addAttribute("svgData", svgData); // base64 data URI for <img>, only with ?embed=datauri
         model.addAttribute("n", nStr != null ? nStr.trim() : "");
         model.addAttribute("selectedOption", option);
         return "index";
     }
 
+    // Result of embedForPage: markup for model.svg and the base64 data URI for model.svgData
+    static final class PageEmbed {
+        String svg;
+        String svgData = "";
+
+        PageEmbed(String svg) {
+            this.svg = svg;
+        }
+    }
+
+    private static final String DATA_URI_PREFIX = "data:image/svg+xml;base64,";
+
+    /**
+     * Page embedding for the form POST: the generator's inline fragment (no XML prolog,
+     * nothing to sanitize) goes into the model as is. The base64 data URI for <img> is
+     * only built when asked for, in one pass into an exactly sized buffer.
+     * Package-private so the benchmarks can drive it without the MVC stack.
+     */
+    static PageEmbed embedForPage(FibonacciCurve generator, int n, boolean dataUri) {
+        byte[] fragment = generator.generateFragmentBytes(n);
+        PageEmbed embed = new PageEmbed(new String(fragment, StandardCharsets.UTF_8));
+        if (dataUri) embed.svgData = dataUri(fragment);
+        return embed;
+    }
+
+    static String dataUri(byte[] svg) {
+        int encoded = 4 * ((svg.length + 2) / 3);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(DATA_URI_PREFIX.length() + encoded);
+        try {
+            bos.write(DATA_URI_PREFIX.getBytes(StandardCharsets.US_ASCII));
+            try (OutputStream b64 = Base64.getEncoder().wrap(bos)) {
+                b64.write(svg);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        return bos.toString(StandardCharsets.US_ASCII);
+    }
+
     // Add explicit /error mapping to show the index page instead of Whitelabel error
     @GetMapping("/error")
     public String handleError(Model model) {
@@ -1,8 +1,10 @@
 package com.mathassistant;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * FibonacciCurve
@@ -18,6 +20,15 @@ import java.util.List;
  * Public API:
  *  - String generateSVG(int n, boolean unitsMode, boolean generatorMode)
  *  - String generateSvg(int n)  // convenience wrapper for backward-compatibility
+ *  - byte[] generateSVGBytes(int n, boolean unitsMode, boolean generatorMode)
+ *  - byte[] generatePng(int n, int size)  // raster output through PngRenderer
+ *  - LevelOfDetail overloads: per-arc sample counts adapted to the displayed size
+ *  - static SpiralGeometry geometry(int n, LevelOfDetail lod, int displaySize)
+ *        // computed once, drawn by the SVG and PNG overloads that take a SpiralGeometry
+ *  - static SpiralGeometry geometry(LinearRecurrence sequence, int n, LevelOfDetail lod, int displaySize)
+ *        // the same spiral with radii from any linear recurrence (Lucas, Pell, ...)
+ *  - void writeSVG(int n, boolean unitsMode, boolean generatorMode, OutputStream out)
+ *        // streaming variant: writes through a fixed-size buffer, no full-document copy
  */
 public class FibonacciCurve {
 
@@ -26,6 +37,32 @@ public class FibonacciCurve {
         "#00AA00"
     };
 
+    /** Valid range of n; anything else renders the out-of-range message document. */
+    public static final int MIN_N = 1;
+    public static final int MAX_N = 40;
+    public static final String OUT_OF_RANGE_MESSAGE = "Enter N between " + MIN_N + " and " + MAX_N;
+
+    /** Samples per quarter arc at full detail (STEPS + 1), used by the render cost model. */
+    public static final int SAMPLES_PER_ARC = 29;
+
+    /** True if n draws a spiral rather than the out-of-range message. */
+    public static boolean inRange(int n) {
+        return n >= MIN_N && n <= MAX_N;
+    }
+
+    // default raster backend: fast deflate level, SUB filter suits the flat background
+    private static final PngRenderer DEFAULT_PNG = new PngRenderer(1, PngEncoder.Filter.SUB);
+
+    private final PngRenderer png;
+
+    public FibonacciCurve() {
+        this(DEFAULT_PNG);
+    }
+
+    public FibonacciCurve(PngRenderer png) {
+        this.png = png;
+    }
+
     // -----------------------
     // Public wrapper (old name)
     // -----------------------
@@ -35,16 +72,115 @@ public class FibonacciCurve {
 
     /**
      * Main SVG generator (mirrors the style you provided earlier).
-     * @param n number of Fibonacci radii (1..40 recommended)
+     * @param n number of Fibonacci radii (MIN_N..MAX_N)
      */
     public String generateSVG(int n, boolean unitsMode, boolean generatorMode) {
+        return new String(generateSVGBytes(n, unitsMode, generatorMode), StandardCharsets.UTF_8);
+    }
 
-        final int SIZE = 700;           // canvas 700×700
-        final double M  = 60;           // margin
-        final double US = SIZE - 2*M;   // usable square
+    /**
+     * Streaming SVG generator: writes the document to out as it is produced.
+     * Peak memory is the writer's buffer plus the arc geometry, whatever the document size.
+     * The stream is flushed but not closed.
+     */
+    public void writeSVG(int n, boolean unitsMode, boolean generatorMode, OutputStream out) throws IOException {
+        writeSVG(n, unitsMode, generatorMode, SvgProfile.STANDARD, out);
+    }
+
+    /** Streaming generator for the given output profile (see SvgProfile). */
+    public void writeSVG(int n, boolean unitsMode, boolean generatorMode, SvgProfile profile, OutputStream out) throws IOException {
+        writeSVG(n, unitsMode, generatorMode, profile, LevelOfDetail.OFF, SIZE, out);
+    }
 
-        StringBuilder svg = new StringBuilder();
-        svg.append("<?xml version='1.0' encoding='UTF-8'?>\n");
+    /**
+     * Streaming generator with adaptive sampling: arcs of the standard profile are sampled
+     * for an image displayed at displaySize pixels (see LevelOfDetail). The compact profile
+     * draws true arcs and ignores lod.
+     */
+    public void writeSVG(int n, boolean unitsMode, boolean generatorMode, SvgProfile profile,
+                         LevelOfDetail lod, int displaySize, OutputStream out) throws IOException {
+        writeSVG(n, unitsMode, generatorMode, profile,
+                profile.compact || !inRange(n) ? null : geometry(n, lod, displaySize), out);
+    }
+
+    /**
+     * Streaming generator for geometry the caller already computed (see geometry()), so
+     * several output formats can share one computation. g is ignored for out-of-range n.
+     * The compact profile draws true arcs from full-density geometry (LevelOfDetail.OFF);
+     * null there means the Fibonacci spiral.
+     */
+    public void writeSVG(int n, boolean unitsMode, boolean generatorMode, SvgProfile profile,
+                         SpiralGeometry g, OutputStream out) throws IOException {
+        SvgWriter svg = new SvgWriter(out);
+        if (profile.compact) {
+            writeCompactDocument(n, g != null || !inRange(n) ? g : calculateQuadrantArcs(n), profile.precision, svg);
+        } else {
+            writeDocument(n, unitsMode, generatorMode, true, g, svg);
+        }
+        svg.flush();
+    }
+
+    /**
+     * Inline fragment: the standard document without the XML prolog, ready to be placed
+     * directly inside an HTML page (a bare <svg> element).
+     */
+    public void writeFragment(int n, OutputStream out) throws IOException {
+        SvgWriter svg = new SvgWriter(out);
+        writeDocument(n, false, false, false, inRange(n) ? calculateQuadrantArcs(n) : null, svg);
+        svg.flush();
+    }
+
+    /** writeFragment rendered to UTF-8 bytes. */
+    public byte[] generateFragmentBytes(int n) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1024 + 700 * Math.max(1, Math.min(n, MAX_N)));
+        try {
+            writeFragment(n, bos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        return bos.toByteArray();
+    }
+
+    /** Same document as generateSVG, rendered straight to UTF-8 bytes. */
+    public byte[] generateSVGBytes(int n, boolean unitsMode, boolean generatorMode) {
+        return generateSVGBytes(n, unitsMode, generatorMode, SvgProfile.STANDARD);
+    }
+
+    /** Document in the given output profile, rendered straight to UTF-8 bytes. */
+    public byte[] generateSVGBytes(int n, boolean unitsMode, boolean generatorMode, SvgProfile profile) {
+        return generateSVGBytes(n, unitsMode, generatorMode, profile, LevelOfDetail.OFF, SIZE);
+    }
+
+    /** Document in the given output profile and level of detail, rendered straight to UTF-8 bytes. */
+    public byte[] generateSVGBytes(int n, boolean unitsMode, boolean generatorMode, SvgProfile profile,
+                                   LevelOfDetail lod, int displaySize) {
+        // ~700 bytes per arc is a good first guess for the standard document size
+        int perArc = profile.compact ? 100 : lod.enabled() ? 300 : 700;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1024 + perArc * Math.max(1, Math.min(n, MAX_N)));
+        try {
+            writeSVG(n, unitsMode, generatorMode, profile, lod, displaySize, bos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        return bos.toByteArray();
+    }
+
+    /** Document for precomputed geometry (see geometry()), rendered straight to UTF-8 bytes. */
+    public byte[] generateSVGBytes(int n, boolean unitsMode, boolean generatorMode, SvgProfile profile, SpiralGeometry g) {
+        int perArc = profile.compact ? 100 : 700;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1024 + perArc * Math.max(1, Math.min(n, MAX_N)));
+        try {
+            writeSVG(n, unitsMode, generatorMode, profile, g, bos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        return bos.toByteArray();
+    }
+
+    private void writeDocument(int n, boolean unitsMode, boolean generatorMode, boolean prolog,
+                               SpiralGeometry g, SvgWriter svg) throws IOException {
+
+        if (prolog) svg.append("<?xml version='1.0' encoding='UTF-8'?>\n");
         svg.append("<svg xmlns='http://www.w3.org/2000/svg' ")
            .append("width='").append(SIZE).append("' height='").append(SIZE)
            .append("' viewBox='0 0 ").append(SIZE).append(" ").append(SIZE).append("'>\n");
@@ -62,172 +198,262 @@ public class FibonacciCurve {
            .append("' fill='none' stroke='#ddd' stroke-width='1'/>\n");
 
         // Validate n
-        if (n < 1 || n > 40) {
+        if (!inRange(n)) {
             svg.append("  <text x='").append(SIZE/2).append("' y='").append(SIZE/2)
                .append("' font-family='Arial' font-size='20' font-weight='bold' text-anchor='middle' fill='red'>")
-               .append("Enter N between 1 and 40</text>\n</svg>");
-            return svg.toString();
+               .append(OUT_OF_RANGE_MESSAGE).append("</text>\n</svg>");
+            return;
         }
 
-        // compute arcs (sampled points for each quarter-circle)
-        List<QuadrantArc> arcs = calculateQuadrantArcs(n);
-
-        // compute bounds
-        double minX=Double.POSITIVE_INFINITY, minY=Double.POSITIVE_INFINITY, maxX=Double.NEGATIVE_INFINITY, maxY=Double.NEGATIVE_INFINITY;
-        for (QuadrantArc a : arcs) {
-            for (double v : a.X) { if (v < minX) minX = v; if (v > maxX) maxX = v; }
-            for (double v : a.Y) { if (v < minY) minY = v; if (v > maxY) maxY = v; }
-        }
-        // fallback if degenerate
-        if (minX == Double.POSITIVE_INFINITY) { minX = -1; maxX = 1; minY = -1; maxY = 1; }
-
-        double worldW = Math.max(1e-6, maxX - minX);
-        double worldH = Math.max(1e-6, maxY - minY);
-
-        // center the world box inside the usable square (US)
-        double scale = US / Math.max(worldW, worldH);
-        if (scale <= 0) scale = 1.0;
-        double extraX = (US - worldW * scale) / 2.0;
-        double extraY = (US - worldH * scale) / 2.0;
-        final double baseX = M + extraX; // pixel x of world.minX
-        final double baseY = M + extraY; // pixel y of world.maxY (top)
-        double ox = baseX + (0 - minX) * scale;            // origin in px
-        double oy = baseY + (maxY - 0) * scale;
+        // center the world box inside the usable square (canvas minus margins)
+        SpiralLayout layout = SpiralLayout.fit(g, SIZE, M);
+        double ox = layout.px(0);            // origin in px
+        double oy = layout.py(0);
 
         // draw solid dark axes (locked, centered)
         svg.append("  <g stroke='#222' stroke-width='2'>\n");
-        svg.append("    <line x1='0' y1='").append(fmt(oy)).append("' x2='").append(SIZE)
-           .append("' y2='").append(fmt(oy)).append("'/>\n"); // X axis
-        svg.append("    <line x1='").append(fmt(ox)).append("' y1='0' x2='")
-           .append(fmt(ox)).append("' y2='").append(SIZE).append("'/>\n"); // Y axis
+        svg.append("    <line x1='0' y1='").appendFixed(oy, DECIMALS).append("' x2='").append(SIZE)
+           .append("' y2='").appendFixed(oy, DECIMALS).append("'/>\n"); // X axis
+        svg.append("    <line x1='").appendFixed(ox, DECIMALS).append("' y1='0' x2='")
+           .appendFixed(ox, DECIMALS).append("' y2='").append(SIZE).append("'/>\n"); // Y axis
         svg.append("  </g>\n");
 
         // center dot
-        svg.append("  <circle cx='").append(fmt(ox)).append("' cy='").append(fmt(oy))
+        svg.append("  <circle cx='").appendFixed(ox, DECIMALS).append("' cy='").appendFixed(oy, DECIMALS)
            .append("' r='3' fill='#222'/>\n");
 
         // group transform: scale & shift world coordinates to canvas pixels
         svg.append("  <g clip-path='url(#clipPad)'>\n");
 
-        // map arcs using baseX/baseY so everything is centered and locked
-        int colIdx = 0;
-        for (QuadrantArc a : arcs) {
-            String col = COLORS[colIdx++ % COLORS.length];
+        // map arcs through the layout so everything is centered and locked
+        for (int arc = 0; arc < g.arcCount(); arc++) {
+            String col = COLORS[arc % COLORS.length];
+            int start = g.arcStart(arc), end = g.arcEnd(arc);
 
             // Build path from sampled points
             svg.append("    <path d='");
-            boolean first = true;
-            for (int i = 0; i < a.X.size(); i++) {
-                double px = baseX + (a.X.get(i) - minX) * scale;
-                double py = baseY + (maxY - a.Y.get(i)) * scale;
-                svg.append(first ? "M " : " L ").append(fmt(px)).append(" ").append(fmt(py));
-                first = false;
+            for (int i = start; i < end; i++) {
+                double px = layout.px(g.x(i));
+                double py = layout.py(g.y(i));
+                svg.append(i == start ? "M " : " L ").appendFixed(px, DECIMALS).append(" ").appendFixed(py, DECIMALS);
             }
             svg.append("' stroke='").append(col)
                .append("' stroke-width='3' fill='none' stroke-linecap='round' stroke-linejoin='round'/>\n");
 
             // number bubble at mid-point
-            int mid = a.X.size() / 2;
-            double lx = baseX + (a.X.get(mid) - minX) * scale;
-            double ly = baseY + (maxY - a.Y.get(mid)) * scale;
-            svg.append("    <circle cx='").append(fmt(lx)).append("' cy='").append(fmt(ly))
+            int mid = start + (end - start) / 2;
+            double lx = layout.px(g.x(mid));
+            double ly = layout.py(g.y(mid));
+            svg.append("    <circle cx='").appendFixed(lx, DECIMALS).append("' cy='").appendFixed(ly, DECIMALS)
                .append("' r='10' fill='white' stroke='").append(col).append("' stroke-width='1.3'/>\n");
-            svg.append("    <text x='").append(fmt(lx)).append("' y='").append(fmt(ly+3))
+            svg.append("    <text x='").appendFixed(lx, DECIMALS).append("' y='").appendFixed(ly+3, DECIMALS)
                .append("' font-family='Arial' font-size='9' font-weight='bold' text-anchor='middle' fill='#333'>")
-               .append(a.radius).append("</text>\n");
+               .append(Math.round(g.radius(arc))).append("</text>\n");
         }
 
         svg.append("  </g>\n");
 
         svg.append("</svg>");
-        return svg.toString();
+    }
+
+    /**
+     * Raster variant: the same spiral drawn at size x size pixels and encoded as PNG.
+     * Uses the same geometry and layout as the SVG output.
+     */
+    public byte[] generatePng(int n, int size) {
+        return generatePng(n, size, LevelOfDetail.OFF);
+    }
+
+    /** Raster variant with adaptive sampling for the given output size. */
+    public byte[] generatePng(int n, int size, LevelOfDetail lod) {
+        return generatePng(n, inRange(n) ? geometry(n, lod, size) : null, size);
+    }
+
+    /** Raster variant for geometry the caller already computed (ignored for out-of-range n). */
+    public byte[] generatePng(int n, SpiralGeometry g, int size) {
+        if (!inRange(n)) return png.renderMessage(OUT_OF_RANGE_MESSAGE, size);
+        return png.render(g, size);
     }
 
     // Add backward-compatible method expected by other parts of the project
     public byte[] generateCurve(int n, int size) {
-        // produce SVG string (existing generator method)
-        String svg = generateSvg(n);
-        // return UTF-8 bytes so callers compile and receive content
-        return svg.getBytes(StandardCharsets.UTF_8);
+        // render straight to UTF-8 bytes (no intermediate String)
+        return generateSVGBytes(n, false, false);
     }
 
-    // -----------------------
-    // Helper: QuadrantArc class
-    // -----------------------
-    private static class QuadrantArc {
-        List<Double> X = new ArrayList<>();
-        List<Double> Y = new ArrayList<>();
-        int radius;
+    /** generateCurve in the given output profile and level of detail (size = display size in px). */
+    public byte[] generateCurve(int n, int size, SvgProfile profile, LevelOfDetail lod) {
+        return generateSVGBytes(n, false, false, profile, lod, size);
     }
 
     /**
-     * Build a sampled list of quarter-circle arcs using the same math approach
-     * as your original code: centers offset by radius according to theta,
-     * and each arc spans 90 degrees. Each arc is sampled with 'steps' points.
+     * Compact profile: same picture as writeDocument, but the whole spiral is one path of
+     * relative elliptical-arc commands (exact quarter circles instead of 29 sampled
+     * vertices each), styles live in shared CSS classes, and numbers use the requested
+     * precision without trailing zeros. Relative offsets are taken between rounded
+     * absolute points, so rounding never accumulates along the path. Nothing that cannot
+     * show is written: arcs that round to zero length (the innermost ones at large n) are
+     * dropped, and so are bubbles entirely hidden under a later bubble at the same rounded
+     * center, i.e. whose label fits inside the covering circle (HIDDEN_LABEL_DIGITS).
      */
-    private List<QuadrantArc> calculateQuadrantArcs(int n) {
-        if (n < 1) n = 1;
-        if (n > 40) n = 40;
-
-        // Fibonacci numbers (starting with 1,1,...)
-        List<Double> fibs = new ArrayList<>();
-        if (n >= 1) fibs.add(1.0);
-        if (n >= 2) fibs.add(1.0);
-        for (int i = 2; i < n; i++) {
-            fibs.add(fibs.get(i - 1) + fibs.get(i - 2));
+    private void writeCompactDocument(int n, SpiralGeometry g, int precision, SvgWriter svg) throws IOException {
+        svg.append("<svg xmlns='http://www.w3.org/2000/svg' width='").append(SIZE).append("' height='").append(SIZE)
+           .append("' viewBox='0 0 ").append(SIZE).append(' ').append(SIZE).append("'>")
+           .append("<style>.a{fill:none;stroke:#0a0;stroke-width:3;stroke-linecap:round;stroke-linejoin:round}")
+           .append(".t circle{fill:#fff;stroke:#0a0;stroke-width:1.3}")
+           .append(".t{font:bold 9px Arial;text-anchor:middle;fill:#333}</style>")
+           .append("<defs><pattern id='g' width='10' height='10' patternUnits='userSpaceOnUse'>")
+           .append("<path d='M10 0H0V10' fill='none' stroke='#e8e8e8' stroke-width='.7'/></pattern></defs>")
+           .append("<rect width='100%' height='100%' fill='url(#g)'/>")
+           .append("<rect x='.5' y='.5' width='").append(SIZE - 1).append("' height='").append(SIZE - 1)
+           .append("' fill='none' stroke='#ddd'/>");
+
+        if (!inRange(n)) {
+            svg.append("<text x='").append(SIZE / 2).append("' y='").append(SIZE / 2)
+               .append("' font-family='Arial' font-size='20' font-weight='bold' text-anchor='middle' fill='red'>")
+               .append(OUT_OF_RANGE_MESSAGE).append("</text></svg>");
+            return;
         }
 
-        List<QuadrantArc> arcs = new ArrayList<>();
-        double currX = 0, currY = 0, theta_deg = 0;
-
-        // sample density for each quarter-arc (higher = smoother)
-        final int STEPS = 28;
+        SpiralLayout layout = SpiralLayout.fit(g, SIZE, M);
+        double unit = POW10[precision];
+
+        // axes and center dot
+        long ox = Math.round(layout.px(0) * unit), oy = Math.round(layout.py(0) * unit);
+        svg.append("<path stroke='#222' stroke-width='2' d='M0 ").appendScaled(oy, precision).append('H').append(SIZE)
+           .append('M').appendScaled(ox, precision).append(" 0V").append(SIZE).append("'/>");
+        svg.append("<circle cx='").appendScaled(ox, precision).append("' cy='").appendScaled(oy, precision)
+           .append("' r='3' fill='#222'/>");
+
+        // the spiral: one continuous path, one relative quarter-arc per radius.
+        // World arcs turn counter-clockwise; with y flipped on screen that is sweep-flag 0.
+        int first = g.arcStart(0);
+        long cx = Math.round(layout.px(g.x(first)) * unit);
+        long cy = Math.round(layout.py(g.y(first)) * unit);
+        svg.append("<path class='a' d='M").appendScaled(cx, precision).append(' ').appendScaled(cy, precision);
+        for (int arc = 0; arc < g.arcCount(); arc++) {
+            int last = g.arcEnd(arc) - 1;
+            long ex = Math.round(layout.px(g.x(last)) * unit);
+            long ey = Math.round(layout.py(g.y(last)) * unit);
+            if (ex == cx && ey == cy) continue; // coincident end points: the arc draws nothing
+            long r = Math.round(g.radius(arc) * layout.scale() * unit);
+            svg.append('a').appendScaled(r, precision).append(' ').appendScaled(r, precision).append(" 0 0 0 ")
+               .appendScaled(ex - cx, precision).append(' ').appendScaled(ey - cy, precision);
+            cx = ex;
+            cy = ey;
+        }
+        svg.append("'/>");
+
+        // number bubbles, styled through the enclosing group
+        int arcs = g.arcCount();
+        long[] lxs = new long[arcs], lys = new long[arcs];
+        for (int arc = 0; arc < arcs; arc++) {
+            int mid = g.arcStart(arc) + (g.arcEnd(arc) - g.arcStart(arc)) / 2;
+            lxs[arc] = Math.round(layout.px(g.x(mid)) * unit);
+            lys[arc] = Math.round(layout.py(g.y(mid)) * unit);
+        }
+        svg.append("<g class='t'>");
+        for (int arc = 0; arc < arcs; arc++) {
+            long label = Math.round(g.radius(arc));
+            if (hiddenBubble(lxs, lys, arc, label)) continue;
+            svg.append("<circle cx='").appendScaled(lxs[arc], precision).append("' cy='").appendScaled(lys[arc], precision)
+               .append("' r='10'/><text x='").appendScaled(lxs[arc], precision).append("' y='")
+               .appendScaled(lys[arc] + Math.round(3 * unit), precision).append("'>")
+               .append(label).append("</text>");
+        }
+        svg.append("</g></svg>");
+    }
 
-        for (double r : fibs) {
+    // Widest label (bold 9px digits are ~5px each) that stays inside a covering bubble's fill.
+    private static final int HIDDEN_LABEL_DIGITS = 3;
 
-            double sin_th = Math.sin(Math.toRadians(theta_deg));
-            double cos_th = Math.cos(Math.toRadians(theta_deg));
+    // true if a later bubble sits on exactly the same point and its white fill covers this label
+    private static boolean hiddenBubble(long[] lxs, long[] lys, int arc, long label) {
+        if (Long.toString(label).length() > HIDDEN_LABEL_DIGITS) return false;
+        for (int later = arc + 1; later < lxs.length; later++) {
+            if (lxs[later] == lxs[arc] && lys[later] == lys[arc]) return true;
+        }
+        return false;
+    }
 
-            // px,py as outward unit vector perpendicular to direction theta
-            double px = -sin_th;
-            double py = cos_th;
+    private static final double[] POW10 = { 1, 10, 100, 1000 };
 
-            double cenX = currX + r * px;
-            double cenY = currY + r * py;
+    // fraction digits for every coordinate written to the SVG
+    private static final int DECIMALS = 3;
 
-            // vector from center to current point
-            double vx = currX - cenX;
-            double vy = currY - cenY;
-            double start_ang = Math.toDegrees(Math.atan2(vy, vx));
-            double end_ang = start_ang + 90.0;
+    private static final int SIZE = 700;    // canvas 700×700
+    private static final double M = 60;     // margin
 
-            QuadrantArc qa = new QuadrantArc();
-            qa.radius = (int)Math.round(r);
+    // sample density for each quarter-arc (higher = smoother)
+    private static final int STEPS = SAMPLES_PER_ARC - 1;
 
-            // sample points from start_ang -> end_ang inclusive
-            for (int s = 0; s <= STEPS; s++) {
-                double t = start_ang + (end_ang - start_ang) * (s / (double)STEPS);
-                double pxs = cenX + r * Math.cos(Math.toRadians(t));
-                double pys = cenY + r * Math.sin(Math.toRadians(t));
-                qa.X.add(pxs);
-                qa.Y.add(pys);
-            }
+    // sample limit per quarter arc for posters: enough for a 0.25px error on a 16k canvas
+    private static final int POSTER_STEPS = 256;
 
-            // update current point to the arc's end (last sampled)
-            currX = qa.X.get(qa.X.size()-1);
-            currY = qa.Y.get(qa.Y.size()-1);
+    // the longest spiral built so far; every n is a prefix view of it
+    private static final SpiralGeometryStore ARCS = new SpiralGeometryStore(STEPS, 3);
 
-            // rotate theta by 90 degrees for next quadrant
-            theta_deg = (theta_deg + 90.0) % 360.0;
+    /**
+     * Sampled arcs for n (MIN_N..MAX_N) as drawn at displaySize pixels: the shared
+     * fixed-density spiral, or per-arc sample counts from lod. Every output format draws
+     * from this, so one result can feed several renderers.
+     */
+    public static SpiralGeometry geometry(int n, LevelOfDetail lod, int displaySize) {
+        return geometry(LinearRecurrence.FIBONACCI, n, lod, displaySize);
+    }
 
-            arcs.add(qa);
+    /**
+     * geometry() with radii a(1..n) of the given sequence. Fibonacci is served from the
+     * shared arc store; other sequences are sampled per call (at most MAX_N arcs).
+     * @throws IllegalArgumentException if the sequence has a negative term among a(1..n)
+     */
+    public static SpiralGeometry geometry(LinearRecurrence sequence, int n, LevelOfDetail lod, int displaySize) {
+        SpiralGeometry full;
+        double[] radii = null;
+        if (sequence.isFibonacci()) {
+            full = calculateQuadrantArcs(n);
+        } else {
+            int count = Math.max(MIN_N, Math.min(n, MAX_N));
+            radii = sequence.radii(count);
+            full = SpiralGeometry.compute(radii, count, STEPS, 3, null);
         }
+        if (!lod.enabled()) return full;
+        if (radii == null) radii = FibonacciNumbers.shared().radii(full.arcCount());
+        return adaptiveArcs(full, radii, lod, displaySize, STEPS);
+    }
+
+    /**
+     * Arcs for a poster-sized canvas (see PngRenderer.renderTiled): adaptive sampling at
+     * the default tolerance, allowed to go past STEPS, whose facets show at these sizes.
+     */
+    public static SpiralGeometry posterGeometry(LinearRecurrence sequence, int n, int displaySize) {
+        SpiralGeometry full = geometry(sequence, n, LevelOfDetail.OFF, displaySize);
+        return adaptiveArcs(full, sequence.radii(full.arcCount()), LevelOfDetail.of(LevelOfDetail.DEFAULT_TOLERANCE),
+                displaySize, POSTER_STEPS);
+    }
 
-        return arcs;
+    /**
+     * The sampled quarter-circle arcs: each arc continues from the end of the previous
+     * one, spans 90 degrees and is sampled with STEPS + 1 points. The first arc starts
+     * at -90 degrees. The result is a read-only view shared between threads.
+     */
+    private static SpiralGeometry calculateQuadrantArcs(int n) {
+        if (n < MIN_N) n = MIN_N;
+        if (n > MAX_N) n = MAX_N;
+        return ARCS.arcs(n);
     }
 
-    // -----------------------
-    // Formatting helpers
-    // -----------------------
-    private static String fmt(double v) { return String.format("%.3f", v); }
-}
\ No newline at end of file
+    /**
+     * Arcs sampled per LevelOfDetail for an image shown at displaySize pixels: each arc's
+     * on-screen radius comes from the fixed-density layout (bounds do not depend on the
+     * sampling, the extremes are the exact quarter-turn end points).
+     */
+    private static SpiralGeometry adaptiveArcs(SpiralGeometry full, double[] radii, LevelOfDetail lod,
+                                              int displaySize, int maxSteps) {
+        int count = full.arcCount();
+        double pxPerUnit = SpiralLayout.fit(full, SIZE, M).scale() * displaySize / SIZE;
+        int[] steps = new int[count];
+        for (int i = 0; i < count; i++) steps[i] = lod.steps(full.radius(i) * pxPerUnit, maxSteps);
+        return SpiralGeometry.computeAdaptive(radii, count, steps, 3, null);
+    }
+}
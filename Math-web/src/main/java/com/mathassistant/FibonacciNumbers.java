@@ -0,0 +1,171 @@
+package com.mathassistant;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * FibonacciNumbers
+ *
+ * Exact Fibonacci numbers (F(0) = 0, F(1) = 1, F(2) = 1, ...) on BigInteger.
+ *  - terms up to MEMO_LIMIT are kept in a shared, append-only memo table
+ *  - anything beyond is computed with O(log k) fast doubling, seeded from the memo
+ *  - ranges are produced by one fast-doubling jump followed by additions
+ *
+ * The memo is safe for concurrent use: readers take the current snapshot without
+ * locking; growth happens under a lock and is published through a volatile field.
+ * Slots are only ever written before the snapshot that exposes them is published.
+ */
+public final class FibonacciNumbers {
+
+    /** Largest index served by the REST endpoints (about 21,000 decimal digits). */
+    public static final int MAX_INDEX = 100_000;
+
+    /**
+     * Largest number of terms the REST endpoints return per range request. Enforced by the
+     * callers, not by range(): in-process users apply their own bound (FibonacciCalculator.MAX_N).
+     */
+    public static final int MAX_RANGE = 10_000;
+
+    // terms below this index are memoized (the whole table is a few MB)
+    private static final int MEMO_LIMIT = 10_000;
+
+    private static final FibonacciNumbers SHARED = new FibonacciNumbers();
+
+    /** Process-wide instance used by the curve generators and the REST endpoints. */
+    public static FibonacciNumbers shared() {
+        return SHARED;
+    }
+
+    // immutable view of the memo: values[0..count) are valid
+    private static final class Snapshot {
+        final BigInteger[] values;
+        final int count;
+        final double[] doubles;
+
+        Snapshot(BigInteger[] values, int count, double[] doubles) {
+            this.values = values;
+            this.count = count;
+            this.doubles = doubles;
+        }
+    }
+
+    private volatile Snapshot memo;
+
+    public FibonacciNumbers() {
+        BigInteger[] values = new BigInteger[64];
+        double[] doubles = new double[64];
+        values[0] = BigInteger.ZERO;
+        values[1] = BigInteger.ONE;
+        doubles[1] = 1.0;
+        memo = new Snapshot(values, 2, doubles);
+    }
+
+    /** Exact F(k) for k >= 0. */
+    public BigInteger get(int k) {
+        if (k < 0) throw new IllegalArgumentException("index must be >= 0: " + k);
+        Snapshot s = memo;
+        if (k < s.count) return s.values[k];
+        if (k < MEMO_LIMIT) return grow(k + 1).values[k];
+        return pair(k)[0];
+    }
+
+    /** F(from) .. F(to) inclusive; callers bound the length (requests cap it at MAX_RANGE). */
+    public BigInteger[] range(int from, int to) {
+        if (from < 0 || to < from) throw new IllegalArgumentException("invalid range " + from + ".." + to);
+        BigInteger[] out = new BigInteger[to - from + 1];
+        if (to < MEMO_LIMIT) {
+            Snapshot s = to < memo.count ? memo : grow(to + 1);
+            System.arraycopy(s.values, from, out, 0, out.length);
+            return out;
+        }
+        BigInteger[] p = pair(from);
+        BigInteger a = p[0], b = p[1];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a;
+            BigInteger next = a.add(b);
+            a = b;
+            b = next;
+        }
+        return out;
+    }
+
+    /**
+     * Spiral radii F(1) .. F(n) as a fresh double[] (correctly rounded; exact up to F(78)).
+     */
+    public double[] radii(int n) {
+        if (n < 0) throw new IllegalArgumentException("n must be >= 0: " + n);
+        int need = Math.min(n + 1, MEMO_LIMIT);
+        Snapshot s = need <= memo.count ? memo : grow(need);
+        if (n < s.count) {
+            // radii[i] = F(i + 1): skip the leading F(0)
+            return Arrays.copyOfRange(s.doubles, 1, n + 1);
+        }
+        double[] out = new double[n];
+        BigInteger[] p = pair(1);
+        BigInteger a = p[0], b = p[1];
+        for (int i = 0; i < n; i++) {
+            out[i] = a.doubleValue();
+            BigInteger next = a.add(b);
+            a = b;
+            b = next;
+        }
+        return out;
+    }
+
+    // extend the memo to at least count terms
+    private synchronized Snapshot grow(int count) {
+        Snapshot s = memo;
+        if (count <= s.count) return s;
+        BigInteger[] values = s.values;
+        double[] doubles = s.doubles;
+        if (values.length < count) {
+            int cap = Math.min(MEMO_LIMIT, Math.max(count, values.length * 2));
+            values = Arrays.copyOf(values, cap);
+            doubles = Arrays.copyOf(doubles, cap);
+        }
+        for (int i = s.count; i < count; i++) {
+            values[i] = values[i - 1].add(values[i - 2]);
+            doubles[i] = values[i].doubleValue();
+        }
+        Snapshot next = new Snapshot(values, count, doubles);
+        memo = next;
+        return next;
+    }
+
+    /**
+     * Fast doubling: returns {F(k), F(k+1)}.
+     *   F(2m)   = F(m) * (2*F(m+1) - F(m))
+     *   F(2m+1) = F(m)^2 + F(m+1)^2
+     * Walks the bits of k from the top, starting from the largest memoized prefix.
+     */
+    private BigInteger[] pair(int k) {
+        Snapshot s = memo;
+        if (k + 1 < s.count) return new BigInteger[] { s.values[k], s.values[k + 1] };
+
+        // find the highest prefix of k's bits that is already in the memo
+        int shift = 31 - Integer.numberOfLeadingZeros(Math.max(k, 1));
+        int m = 0;
+        BigInteger a = BigInteger.ZERO, b = BigInteger.ONE; // F(0), F(1)
+        while (shift >= 0 && ((k >>> shift) + 1) < s.count) {
+            m = k >>> shift;
+            shift--;
+        }
+        if (m > 0) {
+            a = s.values[m];
+            b = s.values[m + 1];
+        }
+
+        for (; shift >= 0; shift--) {
+            BigInteger c = a.multiply(b.shiftLeft(1).subtract(a)); // F(2m)
+            BigInteger d = a.multiply(a).add(b.multiply(b));        // F(2m+1)
+            if (((k >>> shift) & 1) == 0) {
+                a = c;
+                b = d;
+            } else {
+                a = d;
+                b = c.add(d);
+            }
+        }
+        return new BigInteger[] { a, b };
+    }
+}
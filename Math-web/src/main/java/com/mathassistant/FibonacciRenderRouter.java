@@ -0,0 +1,172 @@
+package com.mathassistant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * FibonacciRenderRouter
+ *
+ * The single GET /fibonacci handler. The output format comes from ?format= (svg, svgz,
+ * png, json) or, without it, from the Accept header: the acceptable type with the
+ * highest q wins, an exact type beats a wildcard at equal q, and remaining ties go to
+ * the renderer with the lowest @Order (png, so a bare wildcard keeps getting an image).
+ *
+ * Every format goes through the same steps: normalize the request, look the document up
+ * in RenderCache under the renderer's key, and on a miss render it under RenderScheduler
+ * admission control with a per-format timer. svgz is the SVG entry's gzip copy, sent
+ * with Content-Encoding: gzip whatever the client advertised. ?sequence= draws the
+ * spiral with radii from another linear recurrence (see LinearRecurrence.parse).
+ */
+@Controller
+public class FibonacciRenderRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FibonacciRenderRouter.class);
+
+    public static final String SVGZ = "svgz";
+
+    private final Map<String, CurveRenderer> renderers = new LinkedHashMap<>();
+    private final RenderCache renderCache;
+    private final RenderScheduler scheduler;
+    private final RenderMetrics metrics;
+
+    public FibonacciRenderRouter(List<CurveRenderer> renderers,
+                                 RenderCache renderCache, RenderScheduler scheduler, RenderMetrics metrics) {
+        // injected in @Order order, which is the tie-break order for Accept negotiation
+        for (CurveRenderer r : renderers) this.renderers.putIfAbsent(r.format(), r);
+        this.renderCache = renderCache;
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+    }
+
+    @GetMapping("/fibonacci")
+    @ResponseBody
+    public ResponseEntity<byte[]> render(
+            @RequestParam(value = "n", required = false, defaultValue = "8") int n,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "profile", required = false) String profileName,
+            @RequestParam(value = "precision", required = false) Integer precision,
+            @RequestParam(value = "lod", required = false) Boolean lodEnabled,
+            @RequestParam(value = "tolerance", required = false) Double tolerance,
+            @RequestParam(value = "sequence", required = false) String sequenceSpec,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        boolean svgz = SVGZ.equalsIgnoreCase(format);
+        CurveRenderer renderer = svgz ? renderers.get(RenderCache.Key.SVG)
+                : format != null ? renderers.get(format.toLowerCase(Locale.ROOT))
+                : negotiate(accept);
+        if (renderer == null) {
+            return format != null
+                    ? plain(HttpStatus.BAD_REQUEST, "Unknown format '" + format + "' (use svg, svgz, png or json)")
+                    : plain(HttpStatus.NOT_ACCEPTABLE, "Acceptable types: image/png, image/svg+xml, application/json");
+        }
+
+        LinearRecurrence sequence;
+        try {
+            sequence = LinearRecurrence.parse(sequenceSpec);
+            // a negative or non-finite radius cannot be drawn: refuse before anything is cached
+            if (!sequence.isFibonacci() && FibonacciCurve.inRange(n)) sequence.radii(n);
+        } catch (IllegalArgumentException ex) {
+            return plain(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+
+        int sz = Math.max(FibonacciController.MIN_SIZE,
+                Math.min(size != null ? size : renderer.defaultSize(), FibonacciController.MAX_SIZE));
+        RenderRequest request = new RenderRequest(n, sz, SvgProfile.parse(profileName, precision),
+                LevelOfDetail.parse(lodEnabled, tolerance), sequence);
+        // a message image makes sense; a message "geometry" does not
+        if (!request.inRange() && RenderCache.Key.JSON.equals(renderer.format())) {
+            return plain(HttpStatus.BAD_REQUEST, FibonacciCurve.OUT_OF_RANGE_MESSAGE);
+        }
+
+        try {
+            RenderCache.Entry doc = renderCache.getOrRender(renderer.key(request),
+                    () -> scheduler.run(renderer.cost(request),
+                            () -> metrics.timeRender("render", renderer.format(), n, () -> renderer.render(request))));
+            if (svgz) return compressedResponse(doc, renderer.mediaType(), ifNoneMatch);
+            // the representation depends on Accept unless the format was explicit
+            List<String> vary = format != null ? List.of(HttpHeaders.ACCEPT_ENCODING)
+                    : List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            return FibonacciController.cachedResponse(doc, renderer.mediaType(), ifNoneMatch, acceptEncoding, vary);
+        } catch (RenderScheduler.RenderRejectedException ex) {
+            return FibonacciController.tooManyRequests(ex);
+        } catch (Exception ex) {
+            logger.error("{} render failed for n={} size={}", renderer.format(), n, sz, ex);
+            metrics.error("fibonacci-" + renderer.format());
+            return FibonacciController.errorBytes("Error generating curve: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Renderer for the best acceptable media type, or null if none is acceptable.
+     * No Accept header means anything goes.
+     */
+    CurveRenderer negotiate(String accept) {
+        if (accept == null || accept.isBlank()) return renderers.values().iterator().next();
+        List<MediaType> ranges;
+        try {
+            ranges = MediaType.parseMediaTypes(accept);
+        } catch (IllegalArgumentException ex) {
+            return renderers.values().iterator().next();
+        }
+        CurveRenderer best = null;
+        double bestQ = 0;
+        int bestSpecificity = -1;
+        for (CurveRenderer r : renderers.values()) {
+            // most specific range including this type decides its quality
+            double q = 0;
+            int specificity = -1;
+            for (MediaType range : ranges) {
+                if (!range.includes(r.mediaType())) continue;
+                int s = range.isWildcardType() ? 0 : range.isWildcardSubtype() ? 1 : 2;
+                if (s > specificity) {
+                    specificity = s;
+                    q = range.getQualityValue();
+                }
+            }
+            if (q > bestQ || (q == bestQ && q > 0 && specificity > bestSpecificity)) {
+                best = r;
+                bestQ = q;
+                bestSpecificity = specificity;
+            }
+        }
+        return best;
+    }
+
+    // svgz: the precompressed copy as the representation itself, never identity
+    private static ResponseEntity<byte[]> compressedResponse(RenderCache.Entry doc, MediaType type, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(doc.gzipEtag());
+        headers.setCacheControl(FibonacciController.IMMUTABLE_CACHE_CONTROL);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(headers.getETag()) || ifNoneMatch.trim().equals("*"))) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(type);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        headers.setContentLength(doc.gzip().length);
+        return new ResponseEntity<>(doc.gzip(), headers, HttpStatus.OK);
+    }
+
+    private static ResponseEntity<byte[]> plain(HttpStatus status, String message) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_PLAIN);
+        return new ResponseEntity<>(message.getBytes(StandardCharsets.UTF_8), headers, status);
+    }
+}
@@ -0,0 +1,132 @@
+package com.mathassistant;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * FixedPointFormat
+ *
+ * Allocation-free replacement for String.format("%.Nf", v) on the render path.
+ * Digits are written straight into a byte[] (or StringBuilder) with '.' as the
+ * decimal separator, whatever the default locale.
+ *
+ * Output is byte-for-byte what Formatter produces with Locale.ROOT:
+ *  - HALF_UP rounding of the shortest decimal representation of v
+ *  - a leading '-' whenever the sign bit is set, even if the rounded value is zero
+ *  - "NaN", "Infinity", "-Infinity" for non-finite values
+ *
+ * The fast path handles |v| * 10^digits below 1e9 with plain long arithmetic. Values
+ * too large for it, or within rounding noise of a .5 tie, take the exact BigDecimal
+ * path (rare on real geometry, so allocations stay off the hot path).
+ */
+public final class FixedPointFormat {
+
+    /** Largest supported number of fraction digits. */
+    public static final int MAX_DIGITS = 9;
+
+    /** Worst-case length of a fast-path result, callers can reserve this much buffer space. */
+    public static final int MAX_FAST_LENGTH = 1 + 10 + 1 + MAX_DIGITS;
+
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private static final double FAST_LIMIT = 1e9;
+    // margin around .5 inside which the product v * 10^digits can't be trusted to pick the side
+    private static final double TIE_MARGIN = 1e-6;
+
+    private FixedPointFormat() {}
+
+    /**
+     * Writes v with the given number of fraction digits into buf at pos.
+     * @return the position after the last byte written, or -1 if buf has too little space
+     *         (at most MAX_FAST_LENGTH bytes are needed unless the value takes the slow path)
+     */
+    public static int write(byte[] buf, int pos, double v, int digits) {
+        checkDigits(digits);
+        long scaled = fastScaled(v, digits);
+        if (scaled < 0) {
+            String s = slowFormat(v, digits);
+            if (buf.length - pos < s.length()) return -1;
+            for (int i = 0; i < s.length(); i++) buf[pos++] = (byte) s.charAt(i);
+            return pos;
+        }
+        if (buf.length - pos < MAX_FAST_LENGTH) return -1;
+
+        if (negative(v)) buf[pos++] = '-';
+        long ip = scaled / POW10[digits];
+        long fp = scaled % POW10[digits];
+
+        int intDigits = 1;
+        for (long t = ip; t >= 10; t /= 10) intDigits++;
+        for (int i = pos + intDigits - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + (ip % 10));
+            ip /= 10;
+        }
+        pos += intDigits;
+
+        if (digits > 0) {
+            buf[pos++] = '.';
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                buf[i] = (byte) ('0' + (fp % 10));
+                fp /= 10;
+            }
+            pos += digits;
+        }
+        return pos;
+    }
+
+    /** Appends v with the given number of fraction digits to sb. */
+    public static StringBuilder append(StringBuilder sb, double v, int digits) {
+        checkDigits(digits);
+        long scaled = fastScaled(v, digits);
+        if (scaled < 0) return sb.append(slowFormat(v, digits));
+
+        if (negative(v)) sb.append('-');
+        sb.append(scaled / POW10[digits]);
+        if (digits > 0) {
+            sb.append('.');
+            long fp = scaled % POW10[digits];
+            for (long p = POW10[digits - 1]; p > 0; p /= 10) {
+                sb.append((char) ('0' + (fp / p) % 10));
+            }
+        }
+        return sb;
+    }
+
+    /** Convenience String form (allocates); same output as String.format(Locale.ROOT, "%.Nf", v). */
+    public static String format(double v, int digits) {
+        return append(new StringBuilder(MAX_FAST_LENGTH), v, digits).toString();
+    }
+
+    // |v| * 10^digits rounded HALF_UP, or -1 if the value needs the exact slow path
+    private static long fastScaled(double v, int digits) {
+        double a = Math.abs(v);
+        double x = a * POW10[digits];
+        if (!(x < FAST_LIMIT)) return -1; // also catches NaN and infinities
+        long ip = (long) x;
+        double frac = x - ip;
+        if (Math.abs(frac - 0.5) < TIE_MARGIN) return -1;
+        return frac > 0.5 ? ip + 1 : ip;
+    }
+
+    private static boolean negative(double v) {
+        return Double.doubleToRawLongBits(v) < 0;
+    }
+
+    private static String slowFormat(double v, int digits) {
+        if (Double.isNaN(v)) return "NaN";
+        if (Double.isInfinite(v)) return v > 0 ? "Infinity" : "-Infinity";
+        // Formatter rounds the shortest repr (Double.toString digits) HALF_UP
+        String abs = new BigDecimal(Double.toString(Math.abs(v)))
+                .setScale(digits, RoundingMode.HALF_UP)
+                .toPlainString();
+        return negative(v) ? "-" + abs : abs;
+    }
+
+    private static void checkDigits(int digits) {
+        if (digits < 0 || digits > MAX_DIGITS) {
+            throw new IllegalArgumentException("digits must be in 0.." + MAX_DIGITS + ": " + digits);
+        }
+    }
+}
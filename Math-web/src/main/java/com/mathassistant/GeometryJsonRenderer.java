@@ -0,0 +1,69 @@
+package com.mathassistant;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GeometryJsonRenderer
+ *
+ * application/json with the sampled spiral itself, for clients that draw it on their own
+ * canvas. Coordinates are in spiral units (radius 1 = F(1)), +y up:
+ *
+ *   {"n":8,"bounds":{"minX":..,"minY":..,"maxX":..,"maxY":..},
+ *    "arcs":[{"radius":1,"cx":..,"cy":..,"startQuadrant":3,"points":[x0,y0,x1,y1,...]},...]}
+ *
+ * A "sequence" field follows n when the radii come from another recurrence (?sequence=).
+ * With lod the points are the ones an image at ?size= pixels would draw. Out-of-range n
+ * has no geometry and is rejected by the router before it gets here.
+ */
+@Component
+@Order(3)
+public class GeometryJsonRenderer implements CurveRenderer {
+
+    @Override
+    public String format() { return RenderCache.Key.JSON; }
+
+    @Override
+    public MediaType mediaType() { return MediaType.APPLICATION_JSON; }
+
+    @Override
+    public int defaultSize() { return 700; }
+
+    @Override
+    public RenderCache.Key key(RenderRequest r) {
+        return new RenderCache.Key(RenderCache.Key.JSON, r.n, r.lod.enabled() ? r.size : 0, false, false,
+                r.lod.qualify(r.qualify("geometry")));
+    }
+
+    @Override
+    public long cost(RenderRequest r) {
+        return RenderScheduler.svgCost(r.n);
+    }
+
+    @Override
+    public byte[] render(RenderRequest r) {
+        SpiralGeometry g = r.geometry();
+        StringBuilder json = new StringBuilder(256 + 1200 * g.arcCount());
+        json.append("{\"n\":").append(r.n);
+        if (!r.sequence.isFibonacci()) json.append(",\"sequence\":\"").append(r.sequence.id()).append('"');
+        json.append(",\"bounds\":{\"minX\":").append(g.minX()).append(",\"minY\":").append(g.minY())
+            .append(",\"maxX\":").append(g.maxX()).append(",\"maxY\":").append(g.maxY())
+            .append("},\"arcs\":[");
+        for (int arc = 0; arc < g.arcCount(); arc++) {
+            if (arc > 0) json.append(',');
+            json.append("{\"radius\":").append(g.radius(arc))
+                .append(",\"cx\":").append(g.centerX(arc)).append(",\"cy\":").append(g.centerY(arc))
+                .append(",\"startQuadrant\":").append(g.startQuadrant(arc))
+                .append(",\"points\":[");
+            for (int i = g.arcStart(arc); i < g.arcEnd(arc); i++) {
+                if (i > g.arcStart(arc)) json.append(',');
+                json.append(g.x(i)).append(',').append(g.y(i));
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,7 @@
 package com.mathassistant;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,11 +13,19 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+	private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+	private final RenderMetrics metrics;
+
+	public GlobalExceptionHandler(RenderMetrics metrics) {
+		this.metrics = metrics;
+	}
+
 	@ExceptionHandler(Exception.class)
 	public String handleAllExceptions(Exception ex, Model model) {
-		// minimal info for the user; full stack trace is logged to console
-		System.err.println("Unhandled exception: " + ex.getMessage());
-		ex.printStackTrace();
+		// minimal info for the user; full stack trace goes to the log
+		logger.error("Unhandled exception: {}", ex.getMessage(), ex);
+		metrics.error("unhandled");
 
 		model.addAttribute("error", "Unexpected error: " + (ex.getMessage() == null ? "see server log" : ex.getMessage()));
 		model.addAttribute("svg", "");
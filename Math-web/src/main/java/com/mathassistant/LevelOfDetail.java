@@ -0,0 +1,66 @@
+package com.mathassistant;
+
+/**
+ * LevelOfDetail
+ *
+ * Adaptive sampling for the polyline renderers (standard SVG and PNG). Instead of a fixed
+ * number of segments per quarter arc, each arc gets just enough segments for the chord
+ * error to stay under a tolerance in output pixels:
+ *
+ *   sagitta of a chord spanning angle t on radius R:  R * (1 - cos(t / 2)) <= tolerance
+ *   =>  steps = ceil((pi / 2) / (2 * acos(1 - tolerance / R)))
+ *
+ * Counts are rounded up to even numbers so the 45 degree sample that anchors the number
+ * bubble still exists, and never exceed the fixed count. Arcs whose on-screen radius is
+ * below the cull radius are drawn as a single segment: at that size the stroke cap
+ * covers them anyway.
+ */
+public final class LevelOfDetail {
+
+    public static final double DEFAULT_TOLERANCE = 0.25;
+    public static final double MIN_TOLERANCE = 0.01;
+    public static final double MAX_TOLERANCE = 5;
+
+    /** On-screen radius (px) below which an arc is reduced to one segment. */
+    public static final double CULL_RADIUS = 0.5;
+
+    public static final LevelOfDetail OFF = new LevelOfDetail(0);
+
+    final double tolerance;
+
+    private LevelOfDetail(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /** Adaptive sampling with the given maximum error in pixels (clamped to MIN..MAX_TOLERANCE). */
+    public static LevelOfDetail of(double tolerance) {
+        if (Double.isNaN(tolerance)) tolerance = DEFAULT_TOLERANCE;
+        return new LevelOfDetail(Math.max(MIN_TOLERANCE, Math.min(tolerance, MAX_TOLERANCE)));
+    }
+
+    /** Parse the ?lod= and ?tolerance= request parameters; OFF unless lod is true. */
+    public static LevelOfDetail parse(Boolean lod, Double tolerance) {
+        if (lod == null || !lod) return OFF;
+        return of(tolerance != null ? tolerance : DEFAULT_TOLERANCE);
+    }
+
+    public boolean enabled() {
+        return tolerance > 0;
+    }
+
+    /** Segments for a quarter arc of the given on-screen radius, at most maxSteps. */
+    public int steps(double pixelRadius, int maxSteps) {
+        if (!enabled()) return maxSteps;
+        if (pixelRadius < CULL_RADIUS) return 1;
+        if (pixelRadius <= tolerance) return Math.min(2, maxSteps);
+        double segment = 2 * Math.acos(1 - tolerance / pixelRadius);
+        int steps = (int) Math.ceil((Math.PI / 2) / segment);
+        steps += steps & 1;
+        return Math.max(2, Math.min(steps, maxSteps));
+    }
+
+    /** Cache key qualifier: profileId unchanged when off, else profileId + "-lod" + tolerance. */
+    public String qualify(String profileId) {
+        return enabled() ? profileId + "-lod" + tolerance : profileId;
+    }
+}
@@ -0,0 +1,506 @@
+package com.mathassistant;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * LinearRecurrence
+ *
+ * Order-k linear recurrence with integer coefficients:
+ *
+ *   a(n) = c[0] * a(n-1) + c[1] * a(n-2) + ... + c[k-1] * a(n-k),   a(0..k-1) given
+ *
+ * Named sequences (fibonacci, lucas, pell, jacobsthal, tribonacci, padovan) or any
+ * coefficients and initial terms via parse("c1,c2,...;a0,a1,...").
+ *
+ * Queries:
+ *  - exact(n)         a(n) as BigInteger, up to MAX_EXACT_INDEX, MAX_EXACT_BITS and
+ *                     MAX_EXACT_COST, by linear stepping (Fibonacci goes through
+ *                     FibonacciNumbers' fast doubling); exactCost prices the work
+ *  - mod(n, m)        a(n) mod m for any n >= 0 and 1 <= m < 2^63, by O(k^3 log n) powers
+ *                     of the companion matrix, on long arithmetic only
+ *  - exactRange       consecutive exact terms, from the same single pass
+ *  - rangeMod         consecutive terms mod m; long ranges are split into chunks that each
+ *                     jump to their start with a matrix power and then step linearly, in
+ *                     parallel on the common ForkJoinPool
+ *  - period(m)        preperiod and period of the sequence mod m (the Pisano period for
+ *                     Fibonacci), by Brent's cycle detection on the k-term state
+ *  - radii(n)         a(1..n) as doubles, the spiral's radii source
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class LinearRecurrence {
+
+    /** Largest index for exact (BigInteger) terms. */
+    public static final int MAX_EXACT_INDEX = FibonacciNumbers.MAX_INDEX;
+
+    /** Largest bit length (exactBits) of an exact term, about 39,000 digits. */
+    public static final long MAX_EXACT_BITS = 1L << 17;
+
+    /**
+     * Largest exactCost of one exact query, about a second of stepping; the named sequences
+     * fit it up to MAX_EXACT_INDEX.
+     */
+    public static final long MAX_EXACT_COST = 1L << 34;
+
+    /** Largest number of terms returned by one range query. */
+    public static final int MAX_RANGE = FibonacciNumbers.MAX_RANGE;
+
+    /** Largest order accepted by parse(). */
+    public static final int MAX_ORDER = 16;
+
+    /** State steps period() may take before giving up. */
+    public static final long MAX_PERIOD_STEPS = 10_000_000L;
+
+    // terms per fork/join leaf: below this, one matrix jump costs more than the stepping it saves
+    private static final int RANGE_CHUNK = 1024;
+
+    public static final LinearRecurrence FIBONACCI = named("fibonacci", new long[] { 1, 1 }, new long[] { 0, 1 });
+    public static final LinearRecurrence LUCAS = named("lucas", new long[] { 1, 1 }, new long[] { 2, 1 });
+    public static final LinearRecurrence PELL = named("pell", new long[] { 2, 1 }, new long[] { 0, 1 });
+    public static final LinearRecurrence JACOBSTHAL = named("jacobsthal", new long[] { 1, 2 }, new long[] { 0, 1 });
+    public static final LinearRecurrence TRIBONACCI = named("tribonacci", new long[] { 1, 1, 1 }, new long[] { 0, 0, 1 });
+    public static final LinearRecurrence PADOVAN = named("padovan", new long[] { 0, 1, 1 }, new long[] { 1, 1, 1 });
+
+    private static final Map<String, LinearRecurrence> NAMED = new LinkedHashMap<>();
+
+    static {
+        for (LinearRecurrence r : List.of(FIBONACCI, LUCAS, PELL, JACOBSTHAL, TRIBONACCI, PADOVAN)) NAMED.put(r.name, r);
+    }
+
+    private final String name;      // null for user-defined recurrences
+    private final long[] coefficients;
+    private final long[] initial;
+    private final double growth;    // bits a term can gain per step, see exactBits()
+
+    private LinearRecurrence(String name, long[] coefficients, long[] initial) {
+        if (coefficients.length == 0 || coefficients.length != initial.length) {
+            throw new IllegalArgumentException("need k coefficients and k initial terms, k >= 1");
+        }
+        if (coefficients.length > MAX_ORDER) throw new IllegalArgumentException("order above " + MAX_ORDER);
+        this.name = name;
+        this.coefficients = coefficients.clone();
+        this.initial = initial.clone();
+        this.growth = growth(coefficients);
+    }
+
+    private static LinearRecurrence named(String name, long[] coefficients, long[] initial) {
+        return new LinearRecurrence(name, coefficients, initial);
+    }
+
+    /** a(n) = sum c[i] * a(n-1-i), with a(0..k-1) = initial. */
+    public static LinearRecurrence of(long[] coefficients, long[] initial) {
+        return new LinearRecurrence(null, coefficients, initial);
+    }
+
+    /**
+     * A named sequence ("lucas") or "c1,c2,...;a0,a1,..." (e.g. "1,1;2,1" is Lucas).
+     * Null or blank means Fibonacci.
+     * @throws IllegalArgumentException for unknown names and malformed definitions
+     */
+    public static LinearRecurrence parse(String spec) {
+        if (spec == null || spec.isBlank()) return FIBONACCI;
+        String s = spec.trim().toLowerCase(Locale.ROOT);
+        LinearRecurrence named = NAMED.get(s);
+        if (named != null) return named;
+        int semi = s.indexOf(';');
+        if (semi < 0) throw new IllegalArgumentException("unknown sequence '" + spec + "' (use " + String.join(", ", NAMED.keySet())
+                + " or coefficients;initial terms, e.g. 1,1;2,1)");
+        LinearRecurrence r = of(longs(s.substring(0, semi)), longs(s.substring(semi + 1)));
+        // a definition that matches a named sequence shares its id (and cache entries)
+        for (LinearRecurrence n : NAMED.values()) {
+            if (Arrays.equals(n.coefficients, r.coefficients) && Arrays.equals(n.initial, r.initial)) return n;
+        }
+        return r;
+    }
+
+    /** Names accepted by parse(). */
+    public static List<String> names() {
+        return new ArrayList<>(NAMED.keySet());
+    }
+
+    public int order() {
+        return coefficients.length;
+    }
+
+    /** Stable identifier for cache keys: the name, or "c1,c2;a0,a1". */
+    public String id() {
+        return name != null ? name : join(coefficients) + ";" + join(initial);
+    }
+
+    public boolean isFibonacci() {
+        return this == FIBONACCI;
+    }
+
+    // -----------------------
+    // Exact terms
+    // -----------------------
+
+    /**
+     * Exact a(n) for 0 <= n <= MAX_EXACT_INDEX.
+     * @throws IllegalArgumentException if !exactFits(n, n)
+     */
+    public BigInteger exact(int n) {
+        checkExact(n);
+        if (isFibonacci()) return FibonacciNumbers.shared().get(n);
+        return exactRange(n, n)[0];
+    }
+
+    /**
+     * Exact a(from) .. a(to) inclusive.
+     * @throws IllegalArgumentException if !exactFits(from, to)
+     */
+    public BigInteger[] exactRange(int from, int to) {
+        if (from < 0 || to < from) throw new IllegalArgumentException("invalid range " + from + ".." + to);
+        checkExact(to);
+        if (to - from + 1 > MAX_RANGE) throw new IllegalArgumentException("range longer than " + MAX_RANGE + " terms");
+        if (isFibonacci()) return FibonacciNumbers.shared().range(from, to);
+        if (!exactFits(from, to)) throw new IllegalArgumentException(id() + " is too large for exact terms at index " + to);
+        // linear stepping, k multiply-adds per term: a matrix jump multiplies k x k numbers
+        // as long as the result, so it never beats walking up from a(0)
+        int k = order();
+        BigInteger[] out = new BigInteger[to - from + 1];
+        BigInteger[] window = new BigInteger[k]; // {a(j - k + 1), ..., a(j)}
+        for (int i = 0; i < k; i++) {
+            window[i] = BigInteger.valueOf(initial[i]);
+            if (i >= from && i <= to) out[i - from] = window[i];
+        }
+        for (int j = k; j <= to; j++) {
+            BigInteger next = BigInteger.ZERO;
+            for (int t = 0; t < k; t++) {
+                if (coefficients[t] != 0) next = next.add(window[k - 1 - t].multiply(BigInteger.valueOf(coefficients[t])));
+            }
+            System.arraycopy(window, 1, window, 0, k - 1);
+            window[k - 1] = next;
+            if (j >= from) out[j - from] = next;
+        }
+        return out;
+    }
+
+    /**
+     * Upper bound on the bit length of a(0) .. a(n): |a(j)| <= A * r^j, with A the largest
+     * |initial term| and r >= 1 the positive root of x^k = |c[0]| x^(k-1) + ... + |c[k-1]|
+     * (A * r^j satisfies the recurrence on |coefficients| and starts above |a(0..k-1)|).
+     */
+    public long exactBits(int n) {
+        double a = 1;
+        for (long v : initial) a = Math.max(a, Math.abs((double) v));
+        return (long) Math.ceil(log2(a) + n * growth) + 1;
+    }
+
+    /**
+     * Work of exactRange(from, to), in bit operations: the returned terms' bits for Fibonacci
+     * (memo table and fast doubling); otherwise the bits of every term from a(0) up, times
+     * one multiply-add per nonzero coefficient, as wide as the coefficient in 32-bit words.
+     * Callers use it as the admission cost of exact queries.
+     */
+    public long exactCost(int from, int to) {
+        if (isFibonacci()) return (long) (to - from + 1) * exactBits(to);
+        long words = 0;
+        for (long c : coefficients) {
+            if (c != 0) words += Math.abs(c) >>> 32 == 0 ? 1 : 2;
+        }
+        // sum of exactBits(j) for j = 0..to: the bound grows linearly in j
+        double bits = (to + 1) * (exactBits(0) + exactBits(to)) / 2.0;
+        return (long) Math.min(Long.MAX_VALUE, words * bits);
+    }
+
+    /** Whether exactRange(from, to) stays within MAX_EXACT_BITS and MAX_EXACT_COST. */
+    public boolean exactFits(int from, int to) {
+        return exactBits(to) <= MAX_EXACT_BITS && exactCost(from, to) <= MAX_EXACT_COST;
+    }
+
+    private static double log2(double x) {
+        return Math.log(x) / Math.log(2);
+    }
+
+    // log2 of r in exactBits, by bisection; the upper end keeps it a bound
+    private static double growth(long[] coefficients) {
+        double lo = 1, hi = 1;
+        for (long c : coefficients) hi += Math.abs((double) c);
+        if (hi <= 2) return 0; // sum of |c| <= 1: the terms never outgrow A
+        for (int i = 0; i < 100; i++) {
+            double mid = (lo + hi) / 2, sum = 0, power = 1;
+            for (long c : coefficients) {
+                power /= mid;
+                sum += Math.abs((double) c) * power;
+            }
+            if (sum > 1) lo = mid;
+            else hi = mid;
+        }
+        return log2(hi);
+    }
+
+    /**
+     * Spiral radii a(1) .. a(n) as doubles (correctly rounded).
+     * @throws IllegalArgumentException if a term is negative or too large for a double
+     *         (not drawable as a radius)
+     */
+    public double[] radii(int n) {
+        if (isFibonacci()) return FibonacciNumbers.shared().radii(n);
+        double[] out = new double[n];
+        if (n == 0) return out;
+        BigInteger[] terms = exactRange(1, n);
+        for (int i = 0; i < n; i++) {
+            if (terms[i].signum() < 0) throw new IllegalArgumentException(id() + " has a negative term at index " + (i + 1));
+            out[i] = terms[i].doubleValue();
+            if (!Double.isFinite(out[i])) throw new IllegalArgumentException(id() + " overflows a double at index " + (i + 1));
+        }
+        return out;
+    }
+
+    // -----------------------
+    // Modular terms (long arithmetic only)
+    // -----------------------
+
+    /** a(n) mod m, in [0, m), for n >= 0 and m >= 1. */
+    public long mod(long n, long m) {
+        checkMod(n, m);
+        int k = order();
+        if (n < k) return Math.floorMod(initial[(int) n], m);
+        return modState(n - k + 1, m)[0];
+    }
+
+    /** a(from) .. a(from + count - 1), each mod m. */
+    public long[] rangeMod(long from, int count, long m) {
+        checkMod(from, m);
+        if (count < 0 || count > MAX_RANGE) throw new IllegalArgumentException("count must be 0.." + MAX_RANGE);
+        if (from > Long.MAX_VALUE - count) throw new IllegalArgumentException("range ends past Long.MAX_VALUE");
+        long[] out = new long[count];
+        ForkJoinPool.commonPool().invoke(new RangeTask(out, from, 0, count, m));
+        return out;
+    }
+
+    /**
+     * Preperiod mu and period lambda of the sequence mod m: a(i + lambda) == a(i) mod m for
+     * every i >= mu. For Fibonacci mu = 0 and lambda is the Pisano period.
+     * @return {mu, lambda}
+     * @throws IllegalArgumentException if no cycle shows up within MAX_PERIOD_STEPS steps
+     */
+    public long[] period(long m) {
+        checkMod(0, m);
+        int k = order();
+        long[] c = reduced(m);
+        long[] start = new long[k];
+        for (int i = 0; i < k; i++) start[i] = Math.floorMod(initial[i], m);
+
+        // Brent: find lambda with a power-of-two window, then mu by walking two pointers
+        long[] tortoise = start.clone();
+        long[] hare = start.clone();
+        step(hare, c, m);
+        long power = 1, lambda = 1, steps = 1;
+        while (!Arrays.equals(tortoise, hare)) {
+            if (power == lambda) {
+                System.arraycopy(hare, 0, tortoise, 0, k);
+                power <<= 1;
+                lambda = 0;
+            }
+            step(hare, c, m);
+            lambda++;
+            if (++steps > MAX_PERIOD_STEPS) {
+                throw new IllegalArgumentException("period mod " + m + " is longer than " + MAX_PERIOD_STEPS + " terms");
+            }
+        }
+        tortoise = start.clone();
+        hare = start.clone();
+        for (long i = 0; i < lambda; i++) step(hare, c, m);
+        long mu = 0;
+        while (!Arrays.equals(tortoise, hare)) {
+            step(tortoise, c, m);
+            step(hare, c, m);
+            mu++;
+        }
+        return new long[] { mu, lambda };
+    }
+
+    // window {a(j), ..., a(j + k - 1)} -> {a(j + 1), ..., a(j + k)}
+    private static void step(long[] window, long[] c, long m) {
+        int k = window.length;
+        long next = 0;
+        for (int i = 0; i < k; i++) next = addMod(next, mulMod(c[i], window[k - 1 - i], m), m);
+        System.arraycopy(window, 1, window, 0, k - 1);
+        window[k - 1] = next;
+    }
+
+    // state {a(j + k - 1), ..., a(j)} mod m for j = steps
+    private long[] modState(long steps, long m) {
+        int k = order();
+        long[][] power = modPower(steps, m);
+        long[] state = new long[k];
+        for (int i = 0; i < k; i++) {
+            long sum = 0;
+            for (int j = 0; j < k; j++) sum = addMod(sum, mulMod(power[i][j], Math.floorMod(initial[k - 1 - j], m), m), m);
+            state[i] = sum;
+        }
+        return state;
+    }
+
+    private long[][] modPower(long e, long m) {
+        int k = order();
+        long[][] result = new long[k][k];
+        long[][] base = new long[k][k];
+        for (int i = 0; i < k; i++) {
+            result[i][i] = 1 % m;
+            for (int j = 0; j < k; j++) base[i][j] = Math.floorMod(companion(i, j), m);
+        }
+        for (; e > 0; e >>= 1) {
+            if ((e & 1) != 0) result = modMultiply(result, base, m);
+            if (e > 1) base = modMultiply(base, base, m);
+        }
+        return result;
+    }
+
+    private static long[][] modMultiply(long[][] a, long[][] b, long m) {
+        int k = a.length;
+        long[][] c = new long[k][k];
+        for (int i = 0; i < k; i++) {
+            for (int x = 0; x < k; x++) {
+                long aix = a[i][x];
+                if (aix == 0) continue;
+                for (int j = 0; j < k; j++) c[i][j] = addMod(c[i][j], mulMod(aix, b[x][j], m), m);
+            }
+        }
+        return c;
+    }
+
+    // companion matrix: first row holds the coefficients, the rest shifts the state down
+    private long companion(int i, int j) {
+        if (i == 0) return coefficients[j];
+        return i == j + 1 ? 1 : 0;
+    }
+
+    private long[] reduced(long m) {
+        long[] c = new long[coefficients.length];
+        for (int i = 0; i < c.length; i++) c[i] = Math.floorMod(coefficients[i], m);
+        return c;
+    }
+
+    /** (a + b) mod m for a, b in [0, m), without overflow. */
+    static long addMod(long a, long b, long m) {
+        return a >= m - b ? a - (m - b) : a + b;
+    }
+
+    /** (a * b) mod m for a, b in [0, m), without overflow. */
+    static long mulMod(long a, long b, long m) {
+        // products below 2^63 fit directly: the common case for moduli up to ~3e9
+        if (a < 3037000500L && b < 3037000500L) return a * b % m;
+        // otherwise 128-bit product, reduced 64 bits at a time by shift-and-subtract
+        long hi = Math.multiplyHigh(a, b);
+        long lo = a * b;
+        long r = Long.remainderUnsigned(hi, m);
+        for (int i = 63; i >= 0; i--) {
+            // r = (2r + bit) mod m; r < m < 2^63, so 2r still fits as an unsigned long
+            r <<= 1;
+            if (Long.compareUnsigned(r, m) >= 0) r -= m;
+            if (((lo >>> i) & 1) != 0) r = addMod(r, 1 % m, m);
+        }
+        return r;
+    }
+
+    // -----------------------
+    // Parallel ranges
+    // -----------------------
+
+    // fills out[lo, hi) with a(from + i) mod m
+    private final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] out;
+        private final long from;
+        private final int lo, hi;
+        private final long m;
+
+        RangeTask(long[] out, long from, int lo, int hi, long m) {
+            this.out = out;
+            this.from = from;
+            this.lo = lo;
+            this.hi = hi;
+            this.m = m;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > RANGE_CHUNK) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RangeTask(out, from, lo, mid, m), new RangeTask(out, from, mid, hi, m));
+            } else {
+                fill();
+            }
+        }
+
+        private void fill() {
+            int k = order();
+            long[] c = reduced(m);
+            long first = from + lo;
+            // window {a(j), ..., a(j + k - 1)} starting at j = first
+            long[] window = new long[k];
+            if (first < k) {
+                for (int i = 0; i < k; i++) {
+                    window[i] = first + i < k ? Math.floorMod(initial[(int) first + i], m) : 0;
+                }
+                for (int i = (int) (k - first); i < k; i++) {
+                    long next = 0;
+                    for (int t = 0; t < k; t++) {
+                        long prev = first + i - 1 - t < k ? Math.floorMod(initial[(int) (first + i - 1 - t)], m)
+                                : window[i - 1 - t];
+                        next = addMod(next, mulMod(c[t], prev, m), m);
+                    }
+                    window[i] = next;
+                }
+            } else {
+                long[] state = modState(first, m); // {a(first + k - 1), ..., a(first)}
+                for (int i = 0; i < k; i++) window[i] = state[k - 1 - i];
+            }
+            for (int i = lo; i < hi; i++) {
+                out[i] = window[0];
+                step(window, c, m);
+            }
+        }
+    }
+
+    // -----------------------
+    // Helpers
+    // -----------------------
+    private static void checkExact(int n) {
+        if (n < 0 || n > MAX_EXACT_INDEX) throw new IllegalArgumentException("index must be 0.." + MAX_EXACT_INDEX + ": " + n);
+    }
+
+    private static void checkMod(long n, long m) {
+        if (n < 0) throw new IllegalArgumentException("index must be >= 0: " + n);
+        if (m < 1) throw new IllegalArgumentException("modulus must be >= 1: " + m);
+    }
+
+    private static long[] longs(String list) {
+        String[] parts = list.split(",");
+        long[] out = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                out[i] = Long.parseLong(parts[i].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("not an integer: '" + parts[i].trim() + "'");
+            }
+        }
+        return out;
+    }
+
+    private static String join(long[] values) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return id();
+    }
+}
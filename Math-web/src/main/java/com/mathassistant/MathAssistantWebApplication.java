@@ -25,6 +25,12 @@ public class MathAssistantWebApplication {
     @Value("${server.port}")
     private int serverPort;
 
+    private final RenderMetrics metrics;
+
+    public MathAssistantWebApplication(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @PostConstruct
     public void onStart() {
         logger.info("MathAssistant starting — listening on http://localhost:" + serverPort + " (server.address: 0.0.0.0 if configured)");
@@ -54,12 +60,6 @@ public class MathAssistantWebApplication {
         SpringApplication.run(MathAssistantWebApplication.class, args);
     }
 
-        @GetMapping("/")
-        public String home() {
-                // Return the Thymeleaf template named `index` located in src/main/resources/templates/index.html
-                return "index";
-        }
-
         @GetMapping("/fibonacci-page")
         public String fibonacciPage() {
             // Return the dedicated Fibonacci page template
@@ -70,37 +70,25 @@ public class MathAssistantWebApplication {
     public @ResponseBody Map<String, Object> calc(@RequestParam double a,
                                     @RequestParam double b,
                                     @RequestParam String op) {
-        double res;
+        double res = metrics.timeCalculate(op, () -> apply(a, b, op));
+        Map<String, Object> map = new HashMap<>();
+        map.put("result", res);
+        return map;
+    }
+
+    // Arithmetic behind /calculate: unknown ops yield 0, division by zero yields NaN
+    static double apply(double a, double b, String op) {
         switch (op) {
             case "add":
-                res = a + b;
-                break;
+                return a + b;
             case "sub":
-                res = a - b;
-                break;
+                return a - b;
             case "mul":
-                res = a * b;
-                break;
+                return a * b;
             case "div":
-                res = (b != 0) ? a / b : Double.NaN;
-                break;
+                return (b != 0) ? a / b : Double.NaN;
             default:
-                res = 0.0;
-                break;
+                return 0.0;
         }
-        Map<String, Object> map = new HashMap<>();
-        map.put("result", res);
-        return map;
-    }
-
-    @GetMapping(value = "/fibonacci", produces = MediaType.IMAGE_PNG_VALUE)
-    public @ResponseBody byte[] fib(@RequestParam(required = false, defaultValue = "8") int n,
-                                    @RequestParam(required = false, defaultValue = "600") int size) throws IOException {
-    // Delegate to the new FibonacciCurve generator for nicer output
-    // Allow up to 1000 terms (frontend already limits to 1000)
-    n = Math.max(1, Math.min(n, 1000));
-        int sz = Math.max(100, Math.min(size, 2000));
-        FibonacciCurve gen = new FibonacciCurve();
-        return gen.generateCurve(n, sz);
     }
 }
@@ -0,0 +1,49 @@
+package com.mathassistant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * PngCurveRenderer
+ *
+ * image/png at size x size pixels through PngRenderer, with the deflate level and row
+ * filter from render.png.*. Already compressed, so the cache keeps no gzip copy.
+ */
+@Component
+@Order(1)
+public class PngCurveRenderer implements CurveRenderer {
+
+    private final FibonacciCurve curve;
+
+    public PngCurveRenderer(@Value("${render.png.compression-level:1}") int pngLevel,
+                            @Value("${render.png.filter:sub}") String pngFilter) {
+        this.curve = new FibonacciCurve(new PngRenderer(pngLevel, PngEncoder.Filter.parse(pngFilter)));
+    }
+
+    @Override
+    public String format() { return RenderCache.Key.PNG; }
+
+    @Override
+    public MediaType mediaType() { return MediaType.IMAGE_PNG; }
+
+    @Override
+    public int defaultSize() { return 600; }
+
+    @Override
+    public RenderCache.Key key(RenderRequest r) {
+        return new RenderCache.Key(RenderCache.Key.PNG, r.n, r.size, false, false,
+                r.lod.qualify(r.qualify(SvgProfile.STANDARD.id())));
+    }
+
+    @Override
+    public long cost(RenderRequest r) {
+        return RenderScheduler.pngCost(r.n, r.size);
+    }
+
+    @Override
+    public byte[] render(RenderRequest r) {
+        return curve.generatePng(r.n, r.geometry(), r.size);
+    }
+}
@@ -0,0 +1,149 @@
+package com.mathassistant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PngEncoder
+ *
+ * Small streaming PNG writer for 8-bit RGB images, tuned for speed rather than size:
+ *  - rows are pushed one at a time (writeRow), so callers can stream scanlines out
+ *    without holding the whole image
+ *  - compression level and row filter are configurable (ImageIO exposes neither)
+ *  - IDAT chunks are flushed every CHUNK_SIZE bytes of compressed data
+ *
+ * Usage: new PngEncoder(out, w, h, level, filter); writeRow(...) h times; finish().
+ * The underlying stream is not closed.
+ */
+public final class PngEncoder {
+
+    /** Row filter applied before deflate (PNG filter types 0 and 1). */
+    public enum Filter {
+        /** No filtering: cheapest, good enough for level 1. */
+        NONE,
+        /** Difference to the left pixel: turns flat runs into zeros, usually smaller output. */
+        SUB;
+
+        public static Filter parse(String s) {
+            return "none".equalsIgnoreCase(s) ? NONE : SUB;
+        }
+    }
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final Filter filter;
+    private final Deflater deflater;
+    private final byte[] row;        // filter byte + RGB triplets
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLen;
+    private int rowsWritten;
+
+    public PngEncoder(OutputStream out, int width, int height, int level, Filter filter) throws IOException {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("empty image " + width + "x" + height);
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.filter = filter;
+        this.deflater = new Deflater(Math.max(0, Math.min(level, 9)));
+        this.row = new byte[1 + width * 3];
+
+        out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, width);
+        putInt(ihdr, 4, height);
+        ihdr[8] = 8;  // bit depth
+        ihdr[9] = 2;  // color type: truecolor RGB
+        ihdr[10] = 0; // deflate
+        ihdr[11] = 0; // adaptive filtering (per-row filter byte)
+        ihdr[12] = 0; // no interlace
+        writeChunk("IHDR", ihdr, ihdr.length);
+    }
+
+    /**
+     * Append one scanline of 0xRRGGBB pixels (alpha ignored) read from pixels[offset..offset+width).
+     */
+    public void writeRow(int[] pixels, int offset) throws IOException {
+        if (rowsWritten >= height) throw new IllegalStateException("all " + height + " rows already written");
+        byte[] r = row;
+        if (filter == Filter.SUB) {
+            r[0] = 1;
+            int pr = 0, pg = 0, pb = 0;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                int p = pixels[offset + x];
+                int cr = (p >>> 16) & 0xFF, cg = (p >>> 8) & 0xFF, cb = p & 0xFF;
+                r[i] = (byte) (cr - pr);
+                r[i + 1] = (byte) (cg - pg);
+                r[i + 2] = (byte) (cb - pb);
+                pr = cr; pg = cg; pb = cb;
+            }
+        } else {
+            r[0] = 0;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                int p = pixels[offset + x];
+                r[i] = (byte) (p >>> 16);
+                r[i + 1] = (byte) (p >>> 8);
+                r[i + 2] = (byte) p;
+            }
+        }
+        deflater.setInput(r, 0, r.length);
+        drain(false);
+        rowsWritten++;
+    }
+
+    /** Write the trailing IDAT data and IEND. All rows must have been written. */
+    public void finish() throws IOException {
+        if (rowsWritten != height) throw new IllegalStateException("wrote " + rowsWritten + " of " + height + " rows");
+        deflater.finish();
+        drain(true);
+        deflater.end();
+        writeChunk("IEND", chunk, 0);
+        out.flush();
+    }
+
+    // move compressed bytes from the deflater into IDAT chunks
+    private void drain(boolean finishing) throws IOException {
+        while (true) {
+            int n = deflater.deflate(chunk, chunkLen, chunk.length - chunkLen);
+            chunkLen += n;
+            if (chunkLen == chunk.length) {
+                writeChunk("IDAT", chunk, chunkLen);
+                chunkLen = 0;
+                continue;
+            }
+            if (finishing ? deflater.finished() : deflater.needsInput()) break;
+        }
+        if (finishing && chunkLen > 0) {
+            writeChunk("IDAT", chunk, chunkLen);
+            chunkLen = 0;
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int len) throws IOException {
+        byte[] header = new byte[8];
+        putInt(header, 0, len);
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(typeBytes, 0, header, 4, 4);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, len);
+        out.write(header);
+        out.write(data, 0, len);
+        byte[] trailer = new byte[4];
+        putInt(trailer, 0, (int) crc.getValue());
+        out.write(trailer);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+}
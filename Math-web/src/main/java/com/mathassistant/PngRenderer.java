@@ -0,0 +1,322 @@
+package com.mathassistant;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * PngRenderer
+ *
+ * Raster backend for the Fibonacci spiral: draws the same SpiralGeometry and
+ * SpiralLayout as the SVG writer into an int[] framebuffer (TYPE_INT_RGB) at the
+ * requested size, then streams the rows through PngEncoder.
+ *
+ * Framebuffers are pooled (a few images, matched by size) so steady-state rendering
+ * allocates no pixel memory. The SVG is designed on a 700px canvas; every length here
+ * is scaled by size / 700 so both outputs look alike.
+ *
+ * renderTiled draws canvases too large for one framebuffer (posters): the canvas is cut
+ * into square tiles, each tile draws only the arcs and bubbles whose pixel bounds reach
+ * into it, and one band (row of tiles) is rasterized in parallel on the executor while
+ * the caller encodes the band before it. Memory is two bands of tiles whatever the size.
+ */
+public final class PngRenderer {
+
+    private static final int DESIGN_SIZE = 700;   // canvas size the SVG styling is defined for
+    private static final double DESIGN_MARGIN = 60;
+    private static final int POOL_LIMIT = 4;
+
+    private static final Color GRID = new Color(0xE8E8E8);
+    private static final Color BORDER = new Color(0xDDDDDD);
+    private static final Color AXIS = new Color(0x222222);
+    private static final Color CURVE = new Color(0x00AA00);
+    private static final Color LABEL = new Color(0x333333);
+
+    private final int compressionLevel;
+    private final PngEncoder.Filter filter;
+    private final ArrayDeque<BufferedImage> pool = new ArrayDeque<>();
+
+    /**
+     * @param compressionLevel deflate level 0..9 (1 is a good speed/size trade-off for flat images)
+     * @param filter           PNG row filter
+     */
+    public PngRenderer(int compressionLevel, PngEncoder.Filter filter) {
+        this.compressionLevel = compressionLevel;
+        this.filter = filter;
+    }
+
+    /** Render the spiral for g at size x size pixels and return the PNG bytes. */
+    public byte[] render(SpiralGeometry g, int size) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(16 * 1024);
+        try {
+            render(g, size, bos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // cannot happen for an in-memory stream
+        }
+        return bos.toByteArray();
+    }
+
+    /** Render the spiral for g at size x size pixels and stream the PNG to out. */
+    public void render(SpiralGeometry g, int size, OutputStream out) throws IOException {
+        BufferedImage img = acquire(size);
+        try {
+            draw(img, g, size);
+            int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+            PngEncoder png = new PngEncoder(out, size, size, compressionLevel, filter);
+            for (int y = 0; y < size; y++) png.writeRow(pixels, y * size);
+            png.finish();
+        } finally {
+            release(img);
+        }
+    }
+
+    /**
+     * Render the spiral for g at size x size pixels in tileSize x tileSize tiles and stream
+     * the PNG to out row by row. Tiles of the next band are drawn on executor while this
+     * thread encodes the current one; the pixels are the same as render()'s.
+     */
+    public void renderTiled(SpiralGeometry g, int size, int tileSize, Executor executor, OutputStream out)
+            throws IOException {
+        double k = size / (double) DESIGN_SIZE;
+        SpiralLayout layout = SpiralLayout.fit(g, size, DESIGN_MARGIN * k);
+        int tiles = (size + tileSize - 1) / tileSize;
+        // two bands in flight at most; tiles go back here once their rows are encoded
+        Queue<BufferedImage> free = new ConcurrentLinkedQueue<>();
+
+        PngEncoder png = new PngEncoder(out, size, size, compressionLevel, filter);
+        int[] row = new int[size];
+        List<CompletableFuture<BufferedImage>> band = drawBand(g, layout, size, tileSize, 0, free, executor);
+        try {
+            for (int b = 0; b < tiles; b++) {
+                List<CompletableFuture<BufferedImage>> current = band;
+                band = b + 1 < tiles ? drawBand(g, layout, size, tileSize, b + 1, free, executor) : null;
+                int[][] pixels = new int[tiles][];
+                for (int t = 0; t < tiles; t++) pixels[t] = ((DataBufferInt) join(current.get(t)).getRaster().getDataBuffer()).getData();
+                int rows = Math.min(tileSize, size - b * tileSize);
+                for (int y = 0; y < rows; y++) {
+                    for (int t = 0; t < tiles; t++) {
+                        System.arraycopy(pixels[t], y * tileSize, row, t * tileSize, Math.min(tileSize, size - t * tileSize));
+                    }
+                    png.writeRow(row, 0);
+                }
+                for (CompletableFuture<BufferedImage> tile : current) free.add(tile.join());
+            }
+            png.finish();
+        } finally {
+            // the client may be gone: don't leave the next band drawing for nobody
+            if (band != null) for (CompletableFuture<BufferedImage> tile : band) tile.cancel(false);
+        }
+    }
+
+    // start drawing the tiles of band b (tile row b), left to right
+    private static List<CompletableFuture<BufferedImage>> drawBand(SpiralGeometry g, SpiralLayout layout, int size,
+            int tileSize, int b, Queue<BufferedImage> free, Executor executor) {
+        int tiles = (size + tileSize - 1) / tileSize;
+        List<CompletableFuture<BufferedImage>> band = new ArrayList<>(tiles);
+        for (int t = 0; t < tiles; t++) {
+            int x0 = t * tileSize, y0 = b * tileSize;
+            band.add(CompletableFuture.supplyAsync(() -> {
+                BufferedImage img = free.poll();
+                if (img == null) img = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2 = img.createGraphics();
+                try {
+                    g2.translate(-x0, -y0);
+                    paint(g2, g, layout, size, x0, y0, Math.min(tileSize, size - x0), Math.min(tileSize, size - y0));
+                } finally {
+                    g2.dispose();
+                }
+                return img;
+            }, executor));
+        }
+        return band;
+    }
+
+    private static BufferedImage join(CompletableFuture<BufferedImage> tile) {
+        try {
+            return tile.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    /** Render a red error message instead of a spiral (mirrors the SVG's validation text). */
+    public byte[] renderMessage(String message, int size) {
+        BufferedImage img = acquire(size);
+        try {
+            Graphics2D g2 = img.createGraphics();
+            try {
+                double k = size / (double) DESIGN_SIZE;
+                background(g2, size, k);
+                g2.setColor(Color.RED);
+                g2.setFont(new Font("Arial", Font.BOLD, Math.max(8, (int) Math.round(20 * k))));
+                drawCentered(g2, message, size / 2.0, size / 2.0);
+            } finally {
+                g2.dispose();
+            }
+            int[] pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(8 * 1024);
+            PngEncoder png = new PngEncoder(bos, size, size, compressionLevel, filter);
+            for (int y = 0; y < size; y++) png.writeRow(pixels, y * size);
+            png.finish();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(img);
+        }
+    }
+
+    // -----------------------
+    // Drawing
+    // -----------------------
+    private void draw(BufferedImage img, SpiralGeometry g, int size) {
+        double k = size / (double) DESIGN_SIZE;
+        SpiralLayout layout = SpiralLayout.fit(g, size, DESIGN_MARGIN * k);
+
+        Graphics2D g2 = img.createGraphics();
+        try {
+            paint(g2, g, layout, size, 0, 0, size, size);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Paint the part of the picture inside [x0, x0 + w) x [y0, y0 + h) of the size x size
+     * canvas; g2 maps canvas pixels. Arcs and bubbles entirely outside are skipped, so a
+     * tile costs what it shows rather than what the whole canvas holds.
+     */
+    private static void paint(Graphics2D g2, SpiralGeometry g, SpiralLayout layout, int size,
+                              int x0, int y0, int w, int h) {
+        double k = size / (double) DESIGN_SIZE;
+        background(g2, size, k, x0, y0, w, h);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+        // axes and center dot
+        double ox = layout.px(0), oy = layout.py(0);
+        g2.setColor(AXIS);
+        g2.setStroke(new BasicStroke((float) (2 * k)));
+        g2.draw(new Line2D.Double(0, oy, size, oy));
+        g2.draw(new Line2D.Double(ox, 0, ox, size));
+        double dot = 3 * k;
+        g2.fill(new Ellipse2D.Double(ox - dot, oy - dot, 2 * dot, 2 * dot));
+
+        // arcs: a quarter arc lies inside the box spanned by its center and end points
+        g2.setColor(CURVE);
+        g2.setStroke(new BasicStroke((float) (3 * k), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, g.arcEnd(g.arcCount() - 1));
+        double strokePad = 1.5 * k + 1;
+        for (int arc = 0; arc < g.arcCount(); arc++) {
+            int start = g.arcStart(arc), end = g.arcEnd(arc);
+            double ax = layout.px(g.x(start)), bx = layout.px(g.x(end - 1)), cx = layout.px(g.centerX(arc));
+            double ay = layout.py(g.y(start)), by = layout.py(g.y(end - 1)), cy = layout.py(g.centerY(arc));
+            if (!intersects(Math.min(cx, Math.min(ax, bx)) - strokePad, Math.min(cy, Math.min(ay, by)) - strokePad,
+                    Math.max(cx, Math.max(ax, bx)) + strokePad, Math.max(cy, Math.max(ay, by)) + strokePad,
+                    x0, y0, w, h)) {
+                continue;
+            }
+            path.moveTo(ax, ay);
+            for (int i = start + 1; i < end; i++) path.lineTo(layout.px(g.x(i)), layout.py(g.y(i)));
+        }
+        g2.draw(path);
+
+        // number bubbles at each arc's mid-point
+        double r = 10 * k;
+        BasicStroke bubbleStroke = new BasicStroke((float) (1.3 * k));
+        g2.setFont(new Font("Arial", Font.BOLD, Math.max(6, (int) Math.round(9 * k))));
+        FontMetrics fm = g2.getFontMetrics();
+        for (int arc = 0; arc < g.arcCount(); arc++) {
+            int mid = g.arcStart(arc) + (g.arcEnd(arc) - g.arcStart(arc)) / 2;
+            double lx = layout.px(g.x(mid)), ly = layout.py(g.y(mid));
+            // long labels overflow the bubble sideways
+            String label = Long.toString(Math.round(g.radius(arc)));
+            double rx = Math.max(r, fm.stringWidth(label) / 2.0) + k + 1, ry = Math.max(r, fm.getHeight()) + k + 1;
+            if (!intersects(lx - rx, ly - ry, lx + rx, ly + ry, x0, y0, w, h)) continue;
+            Ellipse2D.Double bubble = new Ellipse2D.Double(lx - r, ly - r, 2 * r, 2 * r);
+            g2.setColor(Color.WHITE);
+            g2.fill(bubble);
+            g2.setColor(CURVE);
+            g2.setStroke(bubbleStroke);
+            g2.draw(bubble);
+            g2.setColor(LABEL);
+            drawCentered(g2, label, lx, ly);
+        }
+    }
+
+    private static boolean intersects(double minX, double minY, double maxX, double maxY, int x0, int y0, int w, int h) {
+        return maxX >= x0 && minX < x0 + w && maxY >= y0 && minY < y0 + h;
+    }
+
+    // white canvas, 10px (design units) light grid and a thin border
+    private static void background(Graphics2D g2, int size, double k) {
+        background(g2, size, k, 0, 0, size, size);
+    }
+
+    // background inside [x0, x0 + w) x [y0, y0 + h) only
+    private static void background(Graphics2D g2, int size, double k, int x0, int y0, int w, int h) {
+        g2.setColor(Color.WHITE);
+        g2.fillRect(x0, y0, w, h);
+        g2.setColor(GRID);
+        double cell = 10 * k;
+        if (cell >= 2) {
+            for (double v = 0; v < size; v += cell) {
+                int p = (int) Math.round(v);
+                if (p >= x0 && p < x0 + w) g2.drawLine(p, y0, p, Math.min(size, y0 + h) - 1);
+                if (p >= y0 && p < y0 + h) g2.drawLine(x0, p, Math.min(size, x0 + w) - 1, p);
+            }
+        }
+        g2.setColor(BORDER);
+        g2.drawRect(0, 0, size - 1, size - 1);
+    }
+
+    private static void drawCentered(Graphics2D g2, String text, double cx, double cy) {
+        FontMetrics fm = g2.getFontMetrics();
+        float x = (float) (cx - fm.stringWidth(text) / 2.0);
+        float y = (float) (cy + (fm.getAscent() - fm.getDescent()) / 2.0);
+        g2.drawString(text, x, y);
+    }
+
+    // -----------------------
+    // Framebuffer pool
+    // -----------------------
+    private BufferedImage acquire(int size) {
+        synchronized (pool) {
+            for (BufferedImage img : pool) {
+                if (img.getWidth() == size) {
+                    pool.remove(img);
+                    return img;
+                }
+            }
+        }
+        return new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+    }
+
+    private void release(BufferedImage img) {
+        synchronized (pool) {
+            if (pool.size() >= POOL_LIMIT) pool.removeLast(); // drop the least recently returned
+            pool.addFirst(img);
+        }
+    }
+}
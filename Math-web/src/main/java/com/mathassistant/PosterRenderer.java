@@ -0,0 +1,122 @@
+package com.mathassistant;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PosterRenderer
+ *
+ * Poster-sized PNGs (GET /fibonacci/poster, up to MAX_SIZE x MAX_SIZE pixels) drawn by
+ * PngRenderer.renderTiled: tiles rasterize in parallel on the common ForkJoinPool and the
+ * rows are encoded straight into the response, so neither the canvas nor the PNG is ever
+ * held in memory. Posters are not cached.
+ *
+ * A poster keeps two bands of render.poster.tile-size tiles in memory
+ * (2 x size x tile-size x 4 bytes, 32 MB for 16k at 256) and all cores busy for seconds,
+ * so at most render.poster.max-concurrent are drawn at once; more answer 429.
+ *
+ * The slot is taken when the request is accepted (so the 429 can still be sent) but the
+ * body runs later on the async executor, or never: the task may be rejected, time out
+ * before it starts, or the request may fail first. The slot is therefore a Lease, handed
+ * back by the body's finally once it ran, or by the async request's completion callback
+ * (which also fires on timeout and error) if the body never started. A body that starts
+ * after its lease was handed back draws nothing.
+ */
+@Component
+public class PosterRenderer {
+
+    /** Largest poster edge in pixels. */
+    public static final int MAX_SIZE = 16384;
+
+    private final PngRenderer png;
+    private final int tileSize;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final RenderMetrics metrics;
+
+    public PosterRenderer(@Value("${render.png.compression-level:1}") int pngLevel,
+                          @Value("${render.png.filter:sub}") String pngFilter,
+                          @Value("${render.poster.tile-size:256}") int tileSize,
+                          @Value("${render.poster.max-concurrent:1}") int maxConcurrent,
+                          RenderMetrics metrics) {
+        this.png = new PngRenderer(pngLevel, PngEncoder.Filter.parse(pngFilter));
+        this.tileSize = Math.max(16, tileSize);
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reserve a poster slot for this request and return the body that draws it (r must be
+     * in range). Must be the last call before the body is returned to Spring MVC.
+     * @throws RenderScheduler.RenderRejectedException if max-concurrent posters are in progress
+     */
+    public StreamingResponseBody prepare(RenderRequest r, NativeWebRequest request) {
+        if (!permits.tryAcquire()) {
+            metrics.admission("poster", "rejected");
+            throw new RenderScheduler.RenderRejectedException("Too many posters in progress (max " + maxConcurrent + ")", 5);
+        }
+        metrics.admission("poster", "admitted");
+        Lease lease = new Lease();
+        try {
+            WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(lease, lease);
+        } catch (RuntimeException e) {
+            lease.abandon();
+            throw e;
+        }
+        Timer timer = metrics.renderTimer("poster", RenderCache.Key.PNG, r.n);
+        return out -> {
+            if (!lease.start()) throw new IOException("Poster request ended before drawing started");
+            long start = System.nanoTime();
+            try {
+                png.renderTiled(FibonacciCurve.posterGeometry(r.sequence, r.n, r.size), r.size, tileSize,
+                        ForkJoinPool.commonPool(), out);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                lease.finish();
+            }
+        };
+    }
+
+    // -----------------------
+    // Slot ownership
+    // -----------------------
+
+    // RESERVED -> RUNNING -> RELEASED by the body, or RESERVED -> RELEASED by abandon();
+    // whichever reaches RELEASED first returns the permit, exactly once
+    private final class Lease implements CallableProcessingInterceptor {
+        private static final int RESERVED = 0, RUNNING = 1, RELEASED = 2;
+        private final AtomicInteger state = new AtomicInteger(RESERVED);
+
+        boolean start() {
+            return state.compareAndSet(RESERVED, RUNNING);
+        }
+
+        void finish() {
+            if (state.compareAndSet(RUNNING, RELEASED)) permits.release();
+        }
+
+        void abandon() {
+            if (state.compareAndSet(RESERVED, RELEASED)) permits.release();
+        }
+
+        // async request over (completed, timed out, failed or never dispatched): a body that
+        // is still drawing keeps the slot until its finally; one that never started gives it up
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            abandon();
+        }
+    }
+}
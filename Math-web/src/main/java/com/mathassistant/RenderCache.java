@@ -0,0 +1,244 @@
+package com.mathassistant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * RenderCache
+ *
+ * Bounded, content-addressed cache for rendered curve documents.
+ *  - keyed by every input that affects the output (format, n, size, unitsMode, generatorMode, profile)
+ *  - stores pre-encoded bytes plus a max-level gzip copy for text formats, so a hit does no encoding work
+ *  - strong ETag derived from the SHA-256 of the body
+ *  - LRU eviction once either the entry count or the total byte budget is exceeded
+ *  - misses are served from the memory-mapped RenderStore when it holds the key
+ */
+@Component
+public class RenderCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final RenderMetrics metrics;
+    private final RenderStore store;
+
+    // access-ordered map gives us LRU iteration order for eviction
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public RenderCache(@Value("${render.cache.max-entries:4096}") int maxEntries,
+                       @Value("${render.cache.max-bytes:67108864}") long maxBytes,
+                       RenderMetrics metrics, RenderStore store) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.metrics = metrics;
+        this.store = store;
+        metrics.bindCache(this);
+    }
+
+    /**
+     * Returns the cached entry for key. On a miss the entry comes from the persistent
+     * RenderStore if it has one, else it is rendered (outside the lock); either way it is kept.
+     * Two threads missing on the same key may both render; the bytes are identical so
+     * the second put simply replaces the first.
+     */
+    public Entry getOrRender(Key key, Supplier<byte[]> renderer) {
+        Entry hit;
+        synchronized (this) {
+            hit = entries.get(key);
+        }
+        if (hit != null) {
+            metrics.cacheHit(key.format);
+            return hit;
+        }
+        metrics.cacheMiss(key.format);
+
+        // prefilled on disk: no rendering, just a copy out of the mapped file
+        Entry created = store.get(key);
+        if (created == null) created = Entry.of(renderer.get(), key.compressible());
+        synchronized (this) {
+            Entry previous = entries.put(key, created);
+            if (previous != null) totalBytes -= previous.weight();
+            totalBytes += created.weight();
+            metrics.recordBytes(key.format, created.body().length);
+            evict();
+        }
+        return created;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    // drop least-recently-used entries until both limits hold (always keep the newest one)
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && entries.size() > 1 && it.hasNext()) {
+            Entry e = it.next().getValue();
+            totalBytes -= e.weight();
+            it.remove();
+        }
+    }
+
+    // -----------------------
+    // Cache key
+    // -----------------------
+    public static final class Key {
+        public static final String SVG = "svg";
+        public static final String PNG = "png";
+        public static final String JSON = "json";
+
+        final String format;
+        final int n;
+        final int size;
+        final boolean unitsMode;
+        final boolean generatorMode;
+        final String profile;
+
+        public Key(String format, int n, int size, boolean unitsMode, boolean generatorMode) {
+            this(format, n, size, unitsMode, generatorMode, SvgProfile.STANDARD.id());
+        }
+
+        public Key(String format, int n, int size, boolean unitsMode, boolean generatorMode, String profile) {
+            this.format = format;
+            this.profile = profile;
+            this.n = n;
+            this.size = size;
+            this.unitsMode = unitsMode;
+            this.generatorMode = generatorMode;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return n == k.n && size == k.size && unitsMode == k.unitsMode && generatorMode == k.generatorMode
+                    && format.equals(k.format) && profile.equals(k.profile);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(format, n, size, unitsMode, generatorMode, profile);
+        }
+
+        // PNG is already deflate-compressed, gzipping it again only wastes CPU
+        boolean compressible() {
+            return !PNG.equals(format);
+        }
+
+        /** Stable identity of the key; RenderStore files are keyed by it, so keep the format. */
+        public String id() {
+            return format + ":n=" + n + ",size=" + size + ",units=" + unitsMode + ",generator=" + generatorMode + ",profile=" + profile;
+        }
+
+        @Override
+        public String toString() {
+            return id();
+        }
+    }
+
+    // -----------------------
+    // Cached document
+    // -----------------------
+    public static final class Entry {
+        private final byte[] body;
+        private final byte[] gzip;
+        private final String etag;
+
+        private Entry(byte[] body, byte[] gzip, String etag) {
+            this.body = body;
+            this.gzip = gzip;
+            this.etag = etag;
+        }
+
+        static Entry of(byte[] body, boolean compressible) {
+            return new Entry(body, compressible ? gzip(body) : null, strongEtag(body));
+        }
+
+        // as written to a RenderStore, nothing recomputed
+        static Entry stored(byte[] body, byte[] gzip, String etag) {
+            return new Entry(body, gzip, etag);
+        }
+
+        /** Raw (identity-encoded) bytes. Callers must not modify the array. */
+        public byte[] body() { return body; }
+
+        /** Gzip-encoded copy of body(), or null for formats that are not worth compressing. */
+        public byte[] gzip() { return gzip; }
+
+        /** Quoted strong ETag, e.g. "\"3f2a...\"". */
+        public String etag() { return etag; }
+
+        /**
+         * Strong ETag of the gzip-encoded copy: etag() with a "-gz" suffix, since a different
+         * content coding is a different representation (RFC 9110 8.8.3).
+         */
+        public String gzipEtag() { return etag.substring(0, etag.length() - 1) + "-gz\""; }
+
+        long weight() { return (long) body.length + (gzip != null ? gzip.length : 0); }
+
+        /**
+         * True if the If-None-Match header value matches this entry's identity or gzip ETag
+         * (handles lists and '*').
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || ifNoneMatch.isEmpty()) return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                String t = tag.trim();
+                if (t.equals("*") || t.equals(etag) || (gzip != null && t.equals(gzipEtag()))) return true;
+            }
+            return false;
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(64, data.length / 8));
+            // compressed once per document and then served many times: spend the CPU on ratio
+            try (GZIPOutputStream gz = new GZIPOutputStream(bos) {
+                { def.setLevel(Deflater.BEST_COMPRESSION); }
+            }) {
+                gz.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bos.toByteArray();
+        }
+
+        private static String strongEtag(byte[] data) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+                StringBuilder sb = new StringBuilder(2 + 32);
+                sb.append('"');
+                // 128 bits of the digest is plenty to address a few thousand documents
+                for (int i = 0; i < 16; i++) {
+                    sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16))
+                      .append(Character.forDigit(digest[i] & 0xF, 16));
+                }
+                return sb.append('"').toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
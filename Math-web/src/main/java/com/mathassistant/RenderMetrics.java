@@ -0,0 +1,205 @@
+package com.mathassistant;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * RenderMetrics
+ *
+ * Micrometer instrumentation for the render and calculate hot paths, exported through
+ * /actuator/metrics and /actuator/prometheus:
+ *  - fibonacci.render            timer (with histogram) per operation, format and n bucket
+ *  - fibonacci.render.bytes      size of produced documents per format
+ *  - fibonacci.render.cache      cache lookups tagged result=hit|miss
+ *  - fibonacci.render.cache.*    cache entry count and byte footprint gauges
+ *  - fibonacci.render.store      persistent store lookups on cache misses, plus .documents / .bytes
+ *  - fibonacci.render.admission  admission decisions per lane (fast, heavy) and result,
+ *                                plus .wait timer and .running / .queued gauges
+ *  - fibonacci.stream.frames     SSE frames sent per event type, fibonacci.stream.open gauge
+ *  - calculator.calculate        timer per op
+ *  - calculator.batch            timer per encoding, plus calculator.batch.rows per request
+ *  - calculator.expression       timer per mode (single, rows), calculator.expression.cache lookups
+ *  - mathassistant.errors        errors per source
+ */
+@Component
+public class RenderMetrics {
+
+    private final MeterRegistry registry;
+
+    public RenderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /** Time body as one render of the given operation (generateSVG, generateCurve, png, embed, ...). */
+    public <T> T timeRender(String operation, String format, int n, Supplier<T> body) {
+        return renderTimer(operation, format, n).record(body);
+    }
+
+    /** Timer for callers that cannot wrap their work in a Supplier (e.g. streaming writes). */
+    public Timer renderTimer(String operation, String format, int n) {
+        return Timer.builder("fibonacci.render")
+                .description("Time spent producing curve documents")
+                .tag("operation", operation)
+                .tag("format", format)
+                .tag("n", nBucket(n))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /** Record the size of a produced document. */
+    public void recordBytes(String format, long bytes) {
+        DistributionSummary.builder("fibonacci.render.bytes")
+                .description("Size of produced curve documents")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(registry)
+                .record(bytes);
+    }
+
+    public void cacheHit(String format) {
+        cacheCounter(format, "hit").increment();
+    }
+
+    public void cacheMiss(String format) {
+        cacheCounter(format, "miss").increment();
+    }
+
+    /** Time one /calculate evaluation. */
+    public double timeCalculate(String op, Supplier<Double> body) {
+        // op comes from the request: only known values become tags
+        String tag = "add".equals(op) || "sub".equals(op) || "mul".equals(op) || "div".equals(op) ? op : "other";
+        return Timer.builder("calculator.calculate")
+                .description("Time spent in /calculate arithmetic")
+                .tag("op", tag)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(body);
+    }
+
+    /** Time one /calculate/batch evaluation and record its row count. */
+    public double[] timeCalculateBatch(String encoding, int rows, Supplier<double[]> body) {
+        DistributionSummary.builder("calculator.batch.rows")
+                .description("Rows per /calculate/batch request")
+                .tag("encoding", encoding)
+                .register(registry)
+                .record(rows);
+        return Timer.builder("calculator.batch")
+                .description("Time spent in /calculate/batch arithmetic")
+                .tag("encoding", encoding)
+                .register(registry)
+                .record(body);
+    }
+
+    /** Time one /calculate/expr evaluation (mode = single or rows). */
+    public <T> T timeExpression(String mode, Supplier<T> body) {
+        return Timer.builder("calculator.expression")
+                .description("Time spent evaluating /calculate/expr requests")
+                .tag("mode", mode)
+                .register(registry)
+                .record(body);
+    }
+
+    /** Count a compiled-expression cache lookup (result = hit or miss). */
+    public void expressionCache(String result) {
+        Counter.builder("calculator.expression.cache")
+                .description("Compiled expression cache lookups")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /** Export the cache's entry count and byte footprint as gauges. */
+    public void bindCache(RenderCache cache) {
+        registry.gauge("fibonacci.render.cache.entries", cache, RenderCache::size);
+        registry.gauge("fibonacci.render.cache.bytes", cache, RenderCache::totalBytes);
+    }
+
+    /** Count a RenderStore lookup (result = hit or miss). */
+    public void storeLookup(String format, String result) {
+        Counter.builder("fibonacci.render.store")
+                .description("Persistent render store lookups")
+                .tag("format", format)
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /** Export the mapped store's document count and size as gauges. */
+    public void bindStore(RenderStore store) {
+        registry.gauge("fibonacci.render.store.documents", store, RenderStore::size);
+        registry.gauge("fibonacci.render.store.bytes", store, RenderStore::mappedBytes);
+    }
+
+    /** Count an admission decision (lane = fast or heavy, result = admitted or rejected). */
+    public void admission(String lane, String result) {
+        Counter.builder("fibonacci.render.admission")
+                .description("Render admission decisions")
+                .tag("lane", lane)
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    /** Record time a heavy render spent queued for a permit. */
+    public void admissionWait(long nanos) {
+        Timer.builder("fibonacci.render.admission.wait")
+                .description("Time heavy renders waited for admission")
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Export the scheduler's running and queued heavy renders as gauges. */
+    public void bindScheduler(RenderScheduler scheduler) {
+        registry.gauge("fibonacci.render.admission.running", scheduler, RenderScheduler::running);
+        registry.gauge("fibonacci.render.admission.queued", scheduler, RenderScheduler::queued);
+    }
+
+    /** Count one frame sent on an arc stream (event = stream, layout, arc, truncate, done). */
+    public void streamFrame(String event) {
+        Counter.builder("fibonacci.stream.frames")
+                .description("Frames sent on progressive arc streams")
+                .tag("event", event)
+                .register(registry)
+                .increment();
+    }
+
+    /** Export the number of open arc streams as a gauge. */
+    public void bindStreams(ArcStreamService streams) {
+        registry.gauge("fibonacci.stream.open", streams, ArcStreamService::openStreams);
+    }
+
+    /** Count an error raised in the given component. */
+    public void error(String source) {
+        Counter.builder("mathassistant.errors")
+                .description("Errors raised while rendering or calculating")
+                .tag("source", source)
+                .register(registry)
+                .increment();
+    }
+
+    /** Errors counted so far by error(), over all sources. */
+    public double errorCount() {
+        return registry.find("mathassistant.errors").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private Counter cacheCounter(String format, String result) {
+        return Counter.builder("fibonacci.render.cache")
+                .description("Render cache lookups")
+                .tag("format", format)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    // coarse buckets keep tag cardinality small: 1-10, 11-20, 21-30, 31-40, other
+    static String nBucket(int n) {
+        if (!FibonacciCurve.inRange(n)) return "other";
+        int lo = ((n - 1) / 10) * 10 + 1;
+        return lo + "-" + (lo + 9);
+    }
+}
@@ -0,0 +1,52 @@
+package com.mathassistant;
+
+/**
+ * RenderRequest
+ *
+ * Normalized parameters of one GET /fibonacci call: n is 0 for every out-of-range value
+ * (they all draw the same message), size is clamped to the display range. The geometry
+ * is computed on first use and kept, so renderers asked for the same request share it.
+ * sequence is the radii source (Fibonacci unless ?sequence= names another recurrence).
+ */
+public final class RenderRequest {
+
+    final int n;
+    final int requestedN;
+    final int size;
+    final SvgProfile profile;
+    final LevelOfDetail lod;
+    final LinearRecurrence sequence;
+
+    private SpiralGeometry geometry;
+
+    public RenderRequest(int requestedN, int size, SvgProfile profile, LevelOfDetail lod) {
+        this(requestedN, size, profile, lod, LinearRecurrence.FIBONACCI);
+    }
+
+    public RenderRequest(int requestedN, int size, SvgProfile profile, LevelOfDetail lod, LinearRecurrence sequence) {
+        this.requestedN = requestedN;
+        this.n = FibonacciCurve.inRange(requestedN) ? requestedN : 0;
+        this.size = size;
+        this.profile = profile;
+        this.lod = lod;
+        this.sequence = sequence;
+    }
+
+    public boolean inRange() {
+        return n != 0;
+    }
+
+    /** Arcs to draw at this request's size and level of detail (null when out of range). */
+    public SpiralGeometry geometry() {
+        if (geometry == null && inRange()) geometry = FibonacciCurve.geometry(sequence, n, lod, size);
+        return geometry;
+    }
+
+    /**
+     * Cache-key qualifier for this request's radii source: Fibonacci keys are unchanged
+     * (and so are prefilled store files); the message document is the same for all.
+     */
+    public String qualify(String profileId) {
+        return sequence.isFibonacci() || !inRange() ? profileId : profileId + "@" + sequence.id();
+    }
+}
@@ -0,0 +1,136 @@
+package com.mathassistant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * RenderScheduler
+ *
+ * Admission control for render cache misses. Every render is priced by a cost model in
+ * sample-pixel units:
+ *  - SVG:  n x samples                                (text output, independent of size)
+ *  - PNG:  n x samples x size / 100 + size^2 / 100   (stroked path length plus pixel fill)
+ * where n is the number of arcs actually drawn (0 for the out-of-range message document).
+ *
+ * Renders up to render.admission.cheap-cost take the fast lane and run immediately; so do
+ * cache hits, which never reach the scheduler. Heavier renders need one of
+ * render.admission.max-concurrent permits, waiting at most render.admission.queue-timeout-ms
+ * with at most render.admission.max-queue callers in line. Anything else is rejected with
+ * RenderRejectedException, which the controllers turn into 429 + Retry-After.
+ */
+@Component
+public class RenderScheduler {
+
+    public static final String FAST = "fast";
+    public static final String HEAVY = "heavy";
+
+    private final long cheapCost;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long queueTimeoutMillis;
+    private final int retryAfterSeconds;
+    private final RenderMetrics metrics;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    public RenderScheduler(@Value("${render.admission.cheap-cost:4000}") long cheapCost,
+                           @Value("${render.admission.max-concurrent:0}") int maxConcurrent,
+                           @Value("${render.admission.max-queue:16}") int maxQueue,
+                           @Value("${render.admission.queue-timeout-ms:250}") long queueTimeoutMillis,
+                           @Value("${render.admission.retry-after-seconds:1}") int retryAfterSeconds,
+                           RenderMetrics metrics) {
+        this.cheapCost = cheapCost;
+        // 0 = one heavy render per core
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.metrics = metrics;
+        this.permits = new Semaphore(this.maxConcurrent, true);
+        metrics.bindScheduler(this);
+    }
+
+    /** Cost of rendering n arcs (already validated, 0 for the message document). */
+    public static long svgCost(int n) {
+        return (long) Math.max(1, n) * FibonacciCurve.SAMPLES_PER_ARC;
+    }
+
+    public static long pngCost(int n, int size) {
+        return (long) Math.max(1, n) * FibonacciCurve.SAMPLES_PER_ARC * size / 100 + (long) size * size / 100;
+    }
+
+    /**
+     * Run the render under admission control.
+     * @throws RenderRejectedException if the heavy lane is saturated
+     */
+    public <T> T run(long cost, Supplier<T> render) {
+        if (cost <= cheapCost) {
+            metrics.admission(FAST, "admitted");
+            return render.get();
+        }
+        acquire();
+        running.incrementAndGet();
+        try {
+            return render.get();
+        } finally {
+            running.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            metrics.admission(HEAVY, "admitted");
+            return;
+        }
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            reject("queue full");
+        }
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        } finally {
+            queued.decrementAndGet();
+            metrics.admissionWait(System.nanoTime() - start);
+        }
+        if (!admitted) reject("queue timeout");
+        metrics.admission(HEAVY, "admitted");
+    }
+
+    private void reject(String reason) {
+        metrics.admission(HEAVY, "rejected");
+        throw new RenderRejectedException("Render capacity exhausted (" + reason + ")", retryAfterSeconds);
+    }
+
+    public int running() { return running.get(); }
+
+    public int queued() { return queued.get(); }
+
+    public int maxConcurrent() { return maxConcurrent; }
+
+    /** Thrown when a heavy render cannot be admitted; maps to 429 Too Many Requests. */
+    public static class RenderRejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int retryAfterSeconds;
+
+        public RenderRejectedException(String message, int retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public int retryAfterSeconds() { return retryAfterSeconds; }
+    }
+}
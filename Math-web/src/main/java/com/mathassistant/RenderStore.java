@@ -0,0 +1,309 @@
+package com.mathassistant;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * RenderStore
+ *
+ * Persistent, memory-mapped store of rendered documents, consulted by RenderCache before
+ * rendering. The file is built offline by RenderStoreTool and mapped read-only at
+ * startup (render.store.path), so every JVM on a host shares one copy through the page
+ * cache and a new instance serves the prefilled matrix without rendering anything.
+ *
+ * File layout (big-endian):
+ *   header   magic "FIBRSTR1" | int version | int slots | long indexOffset | int count | int 0
+ *   records  appended back to back, each:
+ *            int keyLen, key (UTF-8 RenderCache.Key.id()) | int etagLen, etag
+ *            | int bodyLen, body | int gzipLen (-1 = none), gzip
+ *   index    slots x (long keyHash, long recordOffset); open addressing, linear probing,
+ *            hash 0 marks an empty slot, slots is a power of two at least twice count
+ *
+ * A lookup hashes the key, probes the index and compares the stored key bytes, then
+ * copies the body (and gzip copy) out of the mapping into a heap Entry that RenderCache
+ * keeps. Writers never touch a published file: they build a temporary file and move it
+ * into place atomically, so a running reader keeps its consistent old mapping.
+ */
+@Component
+public class RenderStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderStore.class);
+
+    static final long MAGIC = 0x4649425253545231L; // "FIBRSTR1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final int SLOT_BYTES = 16;
+
+    // records are kept well under the 2 GB a single mapping can address, index included
+    static final long MAX_RECORD_BYTES = 1L << 30;
+
+    private final String path;
+    private final RenderMetrics metrics;
+    private volatile Mapped mapped;
+
+    public RenderStore(@Value("${render.store.path:}") String path, RenderMetrics metrics) {
+        this.path = path;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (path == null || path.isBlank()) return;
+        Path file = Paths.get(path);
+        if (!Files.isRegularFile(file)) {
+            logger.info("Render store {} not found, rendering on demand", file);
+            return;
+        }
+        try {
+            mapped = Mapped.open(file);
+            metrics.bindStore(this);
+            logger.info("Render store {} mapped: {} documents, {} bytes", file, mapped.count, mapped.buffer.capacity());
+        } catch (IOException | IllegalArgumentException e) {
+            // a broken store must not keep the instance from serving: render instead
+            logger.warn("Render store {} unusable, rendering on demand: {}", file, e.toString());
+        }
+    }
+
+    /** The stored document for key, or null if the store is disabled or lacks it. */
+    public RenderCache.Entry get(RenderCache.Key key) {
+        Mapped m = mapped;
+        if (m == null) return null;
+        RenderCache.Entry entry = m.get(key.id());
+        metrics.storeLookup(key.format, entry != null ? "hit" : "miss");
+        return entry;
+    }
+
+    public int size() {
+        Mapped m = mapped;
+        return m != null ? m.count : 0;
+    }
+
+    public long mappedBytes() {
+        Mapped m = mapped;
+        return m != null ? m.buffer.capacity() : 0;
+    }
+
+    // FNV-1a, 64 bit; 0 is reserved for empty index slots
+    static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h != 0 ? h : 1;
+    }
+
+    // -----------------------
+    // Read side: one mapped file
+    // -----------------------
+    static final class Mapped {
+        final MappedByteBuffer buffer;
+        final int slots;
+        final int indexOffset;
+        final int count;
+
+        private Mapped(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+                throw new IllegalArgumentException("not a render store");
+            }
+            if (buffer.getInt(8) != VERSION) throw new IllegalArgumentException("unsupported version " + buffer.getInt(8));
+            this.slots = buffer.getInt(12);
+            long index = buffer.getLong(16);
+            this.count = buffer.getInt(24);
+            if (Integer.bitCount(slots) != 1 || index < HEADER_BYTES
+                    || index + (long) slots * SLOT_BYTES != buffer.capacity()) {
+                throw new IllegalArgumentException("corrupt index");
+            }
+            this.indexOffset = (int) index;
+        }
+
+        static Mapped open(Path file) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (ch.size() > Integer.MAX_VALUE) throw new IllegalArgumentException("store larger than 2 GB");
+                // the mapping stays valid after the channel is closed
+                return new Mapped(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+            }
+        }
+
+        /** Offset of the record for key, or -1. Only absolute reads: safe for concurrent use. */
+        int find(byte[] key) {
+            long h = hash(key);
+            int mask = slots - 1;
+            for (int i = (int) h & mask, probes = 0; probes < slots; i = (i + 1) & mask, probes++) {
+                int slot = indexOffset + i * SLOT_BYTES;
+                long stored = buffer.getLong(slot);
+                if (stored == 0) return -1;
+                if (stored == h) {
+                    int record = (int) buffer.getLong(slot + 8);
+                    if (keyEquals(record, key)) return record;
+                }
+            }
+            return -1;
+        }
+
+        RenderCache.Entry get(String key) {
+            int record = find(key.getBytes(StandardCharsets.UTF_8));
+            if (record < 0) return null;
+            int p = record + 4 + buffer.getInt(record);
+            byte[] etag = read(p);
+            p += 4 + etag.length;
+            byte[] body = read(p);
+            p += 4 + body.length;
+            byte[] gzip = buffer.getInt(p) >= 0 ? read(p) : null;
+            return RenderCache.Entry.stored(body, gzip, new String(etag, StandardCharsets.US_ASCII));
+        }
+
+        /** Visit every stored record (used when extending a store). */
+        void forEach(RecordVisitor visitor) throws IOException {
+            int p = HEADER_BYTES;
+            while (p < indexOffset) {
+                byte[] key = read(p);
+                p += 4 + key.length;
+                byte[] etag = read(p);
+                p += 4 + etag.length;
+                byte[] body = read(p);
+                p += 4 + body.length;
+                byte[] gzip = null;
+                if (buffer.getInt(p) >= 0) {
+                    gzip = read(p);
+                    p += 4 + gzip.length;
+                } else {
+                    p += 4;
+                }
+                visitor.visit(new String(key, StandardCharsets.UTF_8),
+                        RenderCache.Entry.stored(body, gzip, new String(etag, StandardCharsets.US_ASCII)));
+            }
+        }
+
+        private boolean keyEquals(int record, byte[] key) {
+            if (buffer.getInt(record) != key.length) return false;
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(record + 4 + i) != key[i]) return false;
+            }
+            return true;
+        }
+
+        // length-prefixed byte string at p
+        private byte[] read(int p) {
+            byte[] out = new byte[buffer.getInt(p)];
+            buffer.get(p + 4, out);
+            return out;
+        }
+    }
+
+    interface RecordVisitor {
+        void visit(String key, RenderCache.Entry entry) throws IOException;
+    }
+
+    // -----------------------
+    // Write side: build a new file, publish atomically
+    // -----------------------
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final DataOutputStream out;
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<Long> offsets = new ArrayList<>();
+        private final Set<String> written = new HashSet<>();
+        private long position = HEADER_BYTES;
+        private boolean committed;
+
+        Writer(Path target) throws IOException {
+            this.target = target.toAbsolutePath();
+            this.temp = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+            OutputStream file = Files.newOutputStream(temp);
+            this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+            out.write(new byte[HEADER_BYTES]); // filled in by commit
+        }
+
+        boolean contains(String key) {
+            return written.contains(key);
+        }
+
+        /** Append one document; a key already written is skipped. */
+        boolean put(String key, RenderCache.Entry entry) throws IOException {
+            if (!written.add(key)) return false;
+            byte[] k = key.getBytes(StandardCharsets.UTF_8);
+            byte[] etag = entry.etag().getBytes(StandardCharsets.US_ASCII);
+            long size = 16L + k.length + etag.length + entry.body().length
+                    + (entry.gzip() != null ? entry.gzip().length : 0);
+            if (position + size > MAX_RECORD_BYTES) throw new IOException("render store would exceed 1 GB of documents");
+            keys.add(k);
+            offsets.add(position);
+            writeBytes(k);
+            writeBytes(etag);
+            writeBytes(entry.body());
+            if (entry.gzip() != null) writeBytes(entry.gzip());
+            else out.writeInt(-1);
+            position += size;
+            return true;
+        }
+
+        int count() {
+            return keys.size();
+        }
+
+        long bytes() {
+            return position;
+        }
+
+        /** Write the index and header, then move the file over the target. */
+        void commit() throws IOException {
+            int slots = Integer.highestOneBit(Math.max(2, keys.size() * 2 - 1)) << 1;
+            long[] index = new long[slots * 2];
+            for (int i = 0; i < keys.size(); i++) {
+                long h = hash(keys.get(i));
+                int slot = (int) h & (slots - 1);
+                while (index[slot * 2] != 0) slot = (slot + 1) & (slots - 1);
+                index[slot * 2] = h;
+                index[slot * 2 + 1] = offsets.get(i);
+            }
+            for (long v : index) out.writeLong(v);
+            out.close();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(VERSION).putInt(slots).putLong(position).putInt(keys.size()).putInt(0).flip();
+            try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ch.write(header, 0);
+                ch.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        private void writeBytes(byte[] b) throws IOException {
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) return;
+            out.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
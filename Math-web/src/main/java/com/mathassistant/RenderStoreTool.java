@@ -0,0 +1,147 @@
+package com.mathassistant;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RenderStoreTool
+ *
+ * Command-line prefill for RenderStore: renders the (n, size, format) matrix with the
+ * same CurveRenderer implementations and cache keys the server uses, and writes them to a
+ * store file that instances map at startup (render.store.path). No Spring context.
+ *
+ *   java -cp app.jar com.mathassistant.RenderStoreTool --out render-store.dat \
+ *        [--n 0-40] [--sizes 600,800] [--formats svg,png,json] [--profiles standard,compact]
+ *        [--png-level 1] [--png-filter sub] [--append]
+ *
+ * n = 0 stands for every out-of-range n (the message document). SVG and JSON without
+ * level of detail do not depend on size, so they are stored once per n. --append keeps
+ * the documents of an existing store and adds the missing ones. --png-level and
+ * --png-filter must match the server's render.png.* settings, or PNG ETags will differ
+ * from what the server would have rendered.
+ */
+public final class RenderStoreTool {
+
+    private RenderStoreTool() {
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            System.exit(run(parse(args)));
+        } catch (IllegalArgumentException e) {
+            System.err.println("RenderStoreTool: " + e.getMessage());
+            System.err.println("usage: --out FILE [--n 0-40] [--sizes 600,800] [--formats svg,png,json]"
+                    + " [--profiles standard,compact] [--png-level 1] [--png-filter sub] [--append]");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("RenderStoreTool: " + e);
+            System.exit(1);
+        }
+    }
+
+    static int run(Map<String, String> opts) throws IOException {
+        String outOpt = opts.get("out");
+        if (outOpt == null) throw new IllegalArgumentException("--out is required");
+        Path out = Paths.get(outOpt);
+        int[] ns = range(opts.getOrDefault("n", "0-" + FibonacciCurve.MAX_N));
+        List<Integer> sizes = ints(opts.getOrDefault("sizes", "600,800"));
+        List<String> formats = List.of(opts.getOrDefault("formats", "svg,png").split(","));
+        List<String> profiles = List.of(opts.getOrDefault("profiles", "standard").split(","));
+
+        Map<String, CurveRenderer> renderers = new LinkedHashMap<>();
+        for (CurveRenderer r : List.of(
+                new SvgCurveRenderer(),
+                new PngCurveRenderer(Integer.parseInt(opts.getOrDefault("png-level", "1")), opts.getOrDefault("png-filter", "sub")),
+                new GeometryJsonRenderer())) {
+            renderers.put(r.format(), r);
+        }
+        for (String f : formats) {
+            if (!renderers.containsKey(f)) throw new IllegalArgumentException("unknown format " + f);
+        }
+
+        long start = System.nanoTime();
+        int rendered = 0, kept = 0;
+        try (RenderStore.Writer writer = new RenderStore.Writer(out)) {
+            if (opts.containsKey("append") && Files.isRegularFile(out)) {
+                RenderStore.Mapped existing = RenderStore.Mapped.open(out);
+                existing.forEach(writer::put);
+                kept = writer.count();
+            }
+            for (String format : formats) {
+                CurveRenderer renderer = renderers.get(format);
+                for (String profileName : profiles) {
+                    SvgProfile profile = SvgProfile.parse(profileName, null);
+                    // the compact profile only exists for SVG
+                    if (profile.compact && !RenderCache.Key.SVG.equals(format)) continue;
+                    for (int n : ns) {
+                        // geometry of an out-of-range n does not exist
+                        if (n == 0 && RenderCache.Key.JSON.equals(format)) continue;
+                        for (int size : sizes) {
+                            RenderRequest request = new RenderRequest(n, size, profile, LevelOfDetail.OFF);
+                            RenderCache.Key key = renderer.key(request);
+                            if (writer.contains(key.id())) continue;
+                            writer.put(key.id(), RenderCache.Entry.of(renderer.render(request), key.compressible()));
+                            rendered++;
+                        }
+                    }
+                }
+            }
+            writer.commit();
+            System.out.printf("Wrote %s: %d documents (%d rendered, %d kept), %d bytes in %d ms%n",
+                    out, writer.count(), rendered, kept, writer.bytes(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return 0;
+    }
+
+    // --key value pairs; --append is a flag
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (!a.startsWith("--")) throw new IllegalArgumentException("unexpected argument " + a);
+            String name = a.substring(2);
+            if (name.equals("append")) {
+                opts.put(name, "true");
+            } else if (i + 1 < args.length) {
+                opts.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("missing value for " + a);
+            }
+        }
+        return opts;
+    }
+
+    // "a-b" or a comma list; n = 0 is the out-of-range message
+    private static int[] range(String spec) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] ends = part.trim().split("-");
+            int lo = Integer.parseInt(ends[0].trim());
+            int hi = ends.length > 1 ? Integer.parseInt(ends[1].trim()) : lo;
+            for (int n = lo; n <= hi; n++) {
+                if (n != 0 && !FibonacciCurve.inRange(n)) throw new IllegalArgumentException("n out of range: " + n);
+                values.add(n);
+            }
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<Integer> ints(String spec) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            int size = Integer.parseInt(part.trim());
+            if (size < FibonacciController.MIN_SIZE || size > FibonacciController.MAX_SIZE) {
+                throw new IllegalArgumentException("size out of range: " + size);
+            }
+            values.add(size);
+        }
+        return values;
+    }
+}
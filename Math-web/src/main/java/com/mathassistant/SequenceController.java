@@ -0,0 +1,149 @@
+package com.mathassistant;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * SequenceController
+ *
+ * Queries on any linear recurrence (see LinearRecurrence), for analysts who need more
+ * than the spiral's Fibonacci numbers:
+ *
+ *   GET /api/sequence?sequence=pell&k=100                 exact a(k)
+ *   GET /api/sequence?sequence=lucas&from=0&to=99         exact a(from..to)
+ *   GET /api/sequence?k=1000000000000&mod=1000000007      a(k) mod m, any k
+ *   GET /api/sequence?from=..&to=..&mod=..                a(from..to) mod m
+ *   GET /api/sequence/period?sequence=tribonacci&mod=10   period (and preperiod) mod m
+ *
+ * sequence is a name or "c1,c2,...;a0,a1,..." and defaults to Fibonacci. Exact values
+ * are decimal strings so JSON clients do not lose precision; residues are numbers.
+ * Work runs under RenderScheduler admission control, priced in bits computed for exact
+ * terms (LinearRecurrence.exactCost) and in recurrence steps for residues.
+ */
+@Controller
+public class SequenceController {
+
+    private final RenderScheduler scheduler;
+    private final RenderMetrics metrics;
+
+    public SequenceController(RenderScheduler scheduler, RenderMetrics metrics) {
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+    }
+
+    @GetMapping(value = "/api/sequence", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> terms(
+            @RequestParam(value = "sequence", required = false) String spec,
+            @RequestParam(value = "k", required = false) Long k,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to,
+            @RequestParam(value = "mod", required = false) Long mod
+    ) {
+        LinearRecurrence seq;
+        try {
+            seq = LinearRecurrence.parse(spec);
+        } catch (IllegalArgumentException ex) {
+            return badRequest(ex.getMessage());
+        }
+        if (mod != null && mod < 1) return badRequest("mod must be at least 1");
+        int max = LinearRecurrence.MAX_EXACT_INDEX;
+        int kk = seq.order();
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sequence", seq.id());
+        if (k != null) {
+            if (k < 0) return badRequest("k must be at least 0");
+            body.put("k", k);
+            if (mod != null) {
+                body.put("mod", mod);
+                body.put("value", seq.mod(k, mod));
+            } else {
+                if (k > max) return badRequest("exact terms need k <= " + max + " (pass mod for larger k)");
+                int index = k.intValue();
+                if (!seq.exactFits(index, index)) return badRequest("a(k) is too large to compute exactly (pass mod)");
+                body.put("value", run(seq.exactCost(index, index), () -> seq.exact(index).toString()));
+            }
+        } else if (from != null && to != null) {
+            if (from < 0 || to < from) return badRequest("require 0 <= from <= to");
+            if (to - from + 1 > LinearRecurrence.MAX_RANGE) return badRequest("at most " + LinearRecurrence.MAX_RANGE + " terms per request");
+            int count = (int) (to - from + 1);
+            body.put("from", from);
+            body.put("to", to);
+            if (mod != null) {
+                body.put("mod", mod);
+                body.put("values", run((long) count * kk, () -> seq.rangeMod(from, count, mod)));
+            } else {
+                if (to > max) return badRequest("exact terms need to <= " + max + " (pass mod for larger indexes)");
+                int first = from.intValue(), last = to.intValue();
+                if (!seq.exactFits(first, last)) return badRequest("a(to) is too large to compute exactly (pass mod)");
+                body.put("values", run(seq.exactCost(first, last), () -> {
+                    List<String> out = new ArrayList<>(count);
+                    for (BigInteger v : seq.exactRange(first, last)) out.add(v.toString());
+                    return out;
+                }));
+            }
+        } else {
+            return badRequest("pass either k or from and to");
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    @GetMapping(value = "/api/sequence/period", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> period(
+            @RequestParam(value = "sequence", required = false) String spec,
+            @RequestParam("mod") long mod
+    ) {
+        LinearRecurrence seq;
+        try {
+            seq = LinearRecurrence.parse(spec);
+        } catch (IllegalArgumentException ex) {
+            return badRequest(ex.getMessage());
+        }
+        if (mod < 1) return badRequest("mod must be at least 1");
+        // a cycle shows up within m^k states
+        long steps = (long) Math.min(LinearRecurrence.MAX_PERIOD_STEPS, Math.pow(mod, seq.order()));
+        long[] period;
+        try {
+            period = run(steps * seq.order(), () -> seq.period(mod));
+        } catch (IllegalArgumentException ex) {
+            return badRequest(ex.getMessage());
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sequence", seq.id());
+        body.put("mod", mod);
+        body.put("preperiod", period[0]);
+        body.put("period", period[1]);
+        return ResponseEntity.ok(body);
+    }
+
+    // local handler wins over GlobalExceptionHandler, which would answer with the index page
+    @ExceptionHandler(RenderScheduler.RenderRejectedException.class)
+    @ResponseBody
+    public ResponseEntity<byte[]> rejected(RenderScheduler.RenderRejectedException ex) {
+        return FibonacciController.tooManyRequests(ex);
+    }
+
+    private <T> T run(long cost, Supplier<T> query) {
+        return scheduler.run(cost, () -> metrics.timeRender("sequence", "json", 0, query));
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return ResponseEntity.badRequest().body(body);
+    }
+}
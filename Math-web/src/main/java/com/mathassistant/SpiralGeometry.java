@@ -0,0 +1,269 @@
+package com.mathassistant;
+
+import java.util.Arrays;
+
+/**
+ * SpiralGeometry
+ *
+ * Shared geometry core for the Fibonacci quadrant spiral. All sampled points live in
+ * flat primitive arrays (no boxed coordinates):
+ *  - xs/ys            sampled points of every arc, arc i occupies [arcStart(i), arcEnd(i))
+ *  - radius/cx/cy     per-arc radius and circle center (world units)
+ *  - startQuadrant    per-arc start angle in quarter turns (0 = +x, 1 = +y, ...)
+ *  - min/max X/Y      world bounds of all samples
+ *
+ * Every arc is a quarter circle that starts where the previous one ended. Points are
+ * produced with an incremental rotation recurrence (one cos/sin pair per geometry,
+ * not per sample); the start and end of each arc are snapped to exact axis-aligned
+ * vectors so error never accumulates across arcs.
+ *
+ * Instances can be recycled through compute(..., reuse) to avoid reallocating buffers,
+ * e.g. one scratch instance per thread. Arcs can also be appended to an existing spiral
+ * (see SpiralGeometryStore), with running bounds kept per arc so every prefix is a
+ * ready-made view.
+ */
+public final class SpiralGeometry {
+
+    int arcCount;
+    int steps;
+    int[] arcOffset = new int[1];
+    double[] xs = new double[0];
+    double[] ys = new double[0];
+    double[] radius = new double[0];
+    double[] cx = new double[0];
+    double[] cy = new double[0];
+    int[] startQuadrant = new int[0];
+    double minX, minY, maxX, maxY;
+
+    // running bounds after each arc, so any prefix knows its bounds without a rescan
+    double[] prefixMinX = new double[0];
+    double[] prefixMinY = new double[0];
+    double[] prefixMaxX = new double[0];
+    double[] prefixMaxY = new double[0];
+
+    // state carried from one arc to the next: end point, heading and the step rotation
+    private double endX, endY;
+    private int quadrant;
+    private double rotCos, rotSin;
+
+    // prefix views share their buffers with the geometry they were taken from
+    private boolean readOnly;
+
+    /**
+     * Build the spiral for the first count radii.
+     * @param radii         arc radii in drawing order
+     * @param count         number of arcs to build (<= radii.length)
+     * @param steps         segments per quarter arc (steps + 1 samples)
+     * @param firstQuadrant start angle of the first arc in quarter turns
+     * @param reuse         instance whose buffers may be recycled, or null
+     */
+    public static SpiralGeometry compute(double[] radii, int count, int steps, int firstQuadrant, SpiralGeometry reuse) {
+        if (steps < 1) throw new IllegalArgumentException("steps must be >= 1");
+        if (reuse != null && reuse.readOnly) throw new IllegalArgumentException("prefix views cannot be reused");
+        SpiralGeometry g = reuse != null ? reuse : new SpiralGeometry();
+        g.reset(steps, firstQuadrant);
+        g.append(radii, 0, count);
+        return g;
+    }
+
+    /**
+     * Like compute, but with a per-arc segment count (see LevelOfDetail): arc i is
+     * sampled with arcSteps[i] + 1 points.
+     */
+    public static SpiralGeometry computeAdaptive(double[] radii, int count, int[] arcSteps, int firstQuadrant, SpiralGeometry reuse) {
+        if (reuse != null && reuse.readOnly) throw new IllegalArgumentException("prefix views cannot be reused");
+        int maxSteps = 1;
+        for (int i = 0; i < count; i++) {
+            if (arcSteps[i] < 1) throw new IllegalArgumentException("steps must be >= 1");
+            maxSteps = Math.max(maxSteps, arcSteps[i]);
+        }
+        SpiralGeometry g = reuse != null ? reuse : new SpiralGeometry();
+        g.reset(maxSteps, firstQuadrant);
+        g.append(radii, 0, count, arcSteps);
+        return g;
+    }
+
+    // start an empty spiral at the origin
+    void reset(int steps, int firstQuadrant) {
+        this.steps = steps;
+        arcCount = 0;
+        arcOffset[0] = 0;
+        endX = 0;
+        endY = 0;
+        quadrant = ((firstQuadrant % 4) + 4) % 4;
+        // rotation by one step: (c, s) = (cos d, sin d), d = 90deg / steps
+        double d = (Math.PI / 2) / steps;
+        rotCos = Math.cos(d);
+        rotSin = Math.sin(d);
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Append arcs for radii[from, to), continuing from the current end point and heading.
+     * Costs O(to - from): existing arcs and their samples are left untouched.
+     */
+    void append(double[] radii, int from, int to) {
+        append(radii, from, to, null);
+    }
+
+    // arcSteps (indexed like radii) overrides the segment count per arc when non-null
+    private void append(double[] radii, int from, int to, int[] arcSteps) {
+        int count = arcCount + (to - from);
+        int points = arcOffset[arcCount];
+        if (arcSteps == null) {
+            points += (to - from) * (steps + 1);
+        } else {
+            for (int i = from; i < to; i++) points += arcSteps[i] + 1;
+        }
+        ensureCapacity(count, points);
+
+        double c, s;
+        double minX = this.minX, minY = this.minY, maxX = this.maxX, maxY = this.maxY;
+        double currX = endX, currY = endY;
+        int q = quadrant;
+        int k = arcOffset[arcCount];
+
+        for (int i = arcCount, src = from; i < count; i++, src++) {
+            double r = radii[src];
+            int steps = this.steps;
+            if (arcSteps != null && arcSteps[src] != steps) {
+                steps = arcSteps[src];
+                double d = (Math.PI / 2) / steps;
+                c = Math.cos(d);
+                s = Math.sin(d);
+            } else {
+                c = rotCos;
+                s = rotSin;
+            }
+
+            // vector from center to start point, exact for axis-aligned angles
+            double vx = QX[q] * r;
+            double vy = QY[q] * r;
+            double cenX = currX - vx;
+            double cenY = currY - vy;
+
+            arcOffset[i] = k;
+            radius[i] = r;
+            cx[i] = cenX;
+            cy[i] = cenY;
+            startQuadrant[i] = q;
+
+            for (int j = 0; j < steps; j++) {
+                double px = cenX + vx;
+                double py = cenY + vy;
+                xs[k] = px;
+                ys[k] = py;
+                k++;
+                if (px < minX) minX = px;
+                if (px > maxX) maxX = px;
+                if (py < minY) minY = py;
+                if (py > maxY) maxY = py;
+
+                double nx = vx * c - vy * s;
+                vy = vx * s + vy * c;
+                vx = nx;
+            }
+
+            // snap the final sample onto the exact quarter-turn end point
+            q = (q + 1) & 3;
+            currX = cenX + QX[q] * r;
+            currY = cenY + QY[q] * r;
+            xs[k] = currX;
+            ys[k] = currY;
+            k++;
+            if (currX < minX) minX = currX;
+            if (currX > maxX) maxX = currX;
+            if (currY < minY) minY = currY;
+            if (currY > maxY) maxY = currY;
+
+            prefixMinX[i] = minX;
+            prefixMinY[i] = minY;
+            prefixMaxX[i] = maxX;
+            prefixMaxY[i] = maxY;
+        }
+        arcOffset[count] = k;
+
+        arcCount = count;
+        endX = currX;
+        endY = currY;
+        quadrant = q;
+        this.minX = minX; this.minY = minY; this.maxX = maxX; this.maxY = maxY;
+    }
+
+    /**
+     * Read-only view of the first n arcs, sharing this geometry's buffers. Samples of
+     * existing arcs never change when arcs are appended, so the view stays valid.
+     */
+    SpiralGeometry prefix(int n) {
+        if (n < 1 || n > arcCount) throw new IllegalArgumentException("prefix " + n + " of " + arcCount + " arcs");
+        SpiralGeometry v = new SpiralGeometry();
+        v.readOnly = true;
+        v.arcCount = n;
+        v.steps = steps;
+        v.arcOffset = arcOffset;
+        v.xs = xs;
+        v.ys = ys;
+        v.radius = radius;
+        v.cx = cx;
+        v.cy = cy;
+        v.startQuadrant = startQuadrant;
+        v.prefixMinX = prefixMinX;
+        v.prefixMinY = prefixMinY;
+        v.prefixMaxX = prefixMaxX;
+        v.prefixMaxY = prefixMaxY;
+        v.minX = prefixMinX[n - 1];
+        v.minY = prefixMinY[n - 1];
+        v.maxX = prefixMaxX[n - 1];
+        v.maxY = prefixMaxY[n - 1];
+        return v;
+    }
+
+    // unit vectors for the four quarter turns: +x, +y, -x, -y
+    private static final double[] QX = { 1, 0, -1, 0 };
+    private static final double[] QY = { 0, 1, 0, -1 };
+
+    // grow (keeping contents, so append can continue) to hold the given arcs and points
+    private void ensureCapacity(int arcs, int points) {
+        if (arcOffset.length < arcs + 1) arcOffset = Arrays.copyOf(arcOffset, Math.max(arcs + 1, arcOffset.length * 2));
+        if (radius.length < arcs) {
+            int cap = Math.max(arcs, radius.length * 2);
+            radius = Arrays.copyOf(radius, cap);
+            cx = Arrays.copyOf(cx, cap);
+            cy = Arrays.copyOf(cy, cap);
+            startQuadrant = Arrays.copyOf(startQuadrant, cap);
+            prefixMinX = Arrays.copyOf(prefixMinX, cap);
+            prefixMinY = Arrays.copyOf(prefixMinY, cap);
+            prefixMaxX = Arrays.copyOf(prefixMaxX, cap);
+            prefixMaxY = Arrays.copyOf(prefixMaxY, cap);
+        }
+        if (xs.length < points) {
+            int cap = Math.max(points, xs.length * 2);
+            xs = Arrays.copyOf(xs, cap);
+            ys = Arrays.copyOf(ys, cap);
+        }
+    }
+
+    // -----------------------
+    // Accessors
+    // -----------------------
+    public int arcCount() { return arcCount; }
+    public int arcStart(int arc) { return arcOffset[arc]; }
+    public int arcEnd(int arc) { return arcOffset[arc + 1]; }
+    public double x(int point) { return xs[point]; }
+    public double y(int point) { return ys[point]; }
+    /** Backing x buffer (may be longer than arcEnd(arcCount() - 1)); do not modify. */
+    public double[] xs() { return xs; }
+    /** Backing y buffer (may be longer than arcEnd(arcCount() - 1)); do not modify. */
+    public double[] ys() { return ys; }
+    public double radius(int arc) { return radius[arc]; }
+    public double centerX(int arc) { return cx[arc]; }
+    public double centerY(int arc) { return cy[arc]; }
+    public int startQuadrant(int arc) { return startQuadrant[arc]; }
+    public double minX() { return minX; }
+    public double minY() { return minY; }
+    public double maxX() { return maxX; }
+    public double maxY() { return maxY; }
+}
@@ -0,0 +1,79 @@
+package com.mathassistant;
+
+import java.math.BigInteger;
+
+/**
+ * SpiralGeometryStore
+ *
+ * Append-only store of the longest Fibonacci spiral built so far for one sampling setup
+ * (steps per arc, first quadrant). A request for n arcs is served as a prefix view of
+ * that spiral; a request past its end appends only the missing arcs, continuing from the
+ * stored end point, heading and Fibonacci state. A slider stepping n -> n + k therefore
+ * costs O(k), and repeated or smaller n cost nothing but the view object.
+ *
+ * Views are read-only and never change: appended arcs go past their end, and growing
+ * the buffers copies them, leaving the arrays older views hold intact. Readers take the
+ * published spiral without locking; appends are serialized.
+ *
+ * Radii are F(1), F(2), ... as doubles, the same values FibonacciNumbers.radii returns,
+ * so views are bit-identical to SpiralGeometry.compute on those radii.
+ */
+public final class SpiralGeometryStore {
+
+    /** Largest spiral kept; F(1477) no longer fits a double. */
+    public static final int MAX_ARCS = 1000;
+
+    // arcs appended per extension at least, so single-step slider moves don't append one at a time
+    private static final int MIN_GROWTH = 8;
+
+    private final SpiralGeometry spiral = new SpiralGeometry();
+    private volatile SpiralGeometry published;
+
+    // Fibonacci state: the radii of the next two arcs, F(count + 1) and F(count + 2)
+    private BigInteger next = BigInteger.ONE;
+    private BigInteger after = BigInteger.ONE;
+
+    /**
+     * @param steps         segments per quarter arc (steps + 1 samples)
+     * @param firstQuadrant start angle of the first arc in quarter turns
+     */
+    public SpiralGeometryStore(int steps, int firstQuadrant) {
+        if (steps < 1) throw new IllegalArgumentException("steps must be >= 1");
+        spiral.reset(steps, firstQuadrant);
+    }
+
+    /** Read-only geometry of the first n arcs (1 <= n <= MAX_ARCS). */
+    public SpiralGeometry arcs(int n) {
+        if (n < 1 || n > MAX_ARCS) throw new IllegalArgumentException("n must be 1.." + MAX_ARCS + ": " + n);
+        SpiralGeometry p = published;
+        if (p == null || p.arcCount < n) p = extendTo(n);
+        return p.arcCount == n ? p : p.prefix(n);
+    }
+
+    /** Number of arcs built so far. */
+    public int size() {
+        SpiralGeometry p = published;
+        return p != null ? p.arcCount : 0;
+    }
+
+    private synchronized SpiralGeometry extendTo(int n) {
+        SpiralGeometry p = published;
+        if (p != null && p.arcCount >= n) return p;
+
+        int from = spiral.arcCount;
+        int to = Math.min(MAX_ARCS, Math.max(n, from + MIN_GROWTH));
+        double[] radii = new double[to - from];
+        for (int i = 0; i < radii.length; i++) {
+            radii[i] = next.doubleValue();
+            BigInteger sum = next.add(after);
+            next = after;
+            after = sum;
+        }
+        spiral.append(radii, 0, radii.length);
+
+        // publish a view so readers never see the store's own mutable instance
+        SpiralGeometry view = spiral.prefix(spiral.arcCount);
+        published = view;
+        return view;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mathassistant;
+
+/**
+ * SpiralLayout
+ *
+ * Maps SpiralGeometry world coordinates to canvas pixels: the world bounding box is
+ * scaled uniformly to fit the usable square (canvas minus margins), centered, and
+ * flipped so world +y points up. Shared by the SVG and raster renderers so every
+ * output format places the spiral identically.
+ */
+public final class SpiralLayout {
+
+    final double minX, minY, maxX, maxY;
+    final double scale;
+    final double baseX; // pixel x of world minX
+    final double baseY; // pixel y of world maxY (top)
+
+    private SpiralLayout(double minX, double minY, double maxX, double maxY, double scale, double baseX, double baseY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.scale = scale;
+        this.baseX = baseX;
+        this.baseY = baseY;
+    }
+
+    /**
+     * @param g      geometry whose bounds should fill the canvas
+     * @param canvas canvas width and height in pixels
+     * @param margin empty border on every side in pixels
+     */
+    public static SpiralLayout fit(SpiralGeometry g, double canvas, double margin) {
+        // bounds are tracked while sampling
+        double minX = g.minX(), minY = g.minY(), maxX = g.maxX(), maxY = g.maxY();
+        // fallback if degenerate
+        if (minX == Double.POSITIVE_INFINITY) { minX = -1; maxX = 1; minY = -1; maxY = 1; }
+
+        double usable = canvas - 2 * margin;
+        double worldW = Math.max(1e-6, maxX - minX);
+        double worldH = Math.max(1e-6, maxY - minY);
+
+        // center the world box inside the usable square
+        double scale = usable / Math.max(worldW, worldH);
+        if (scale <= 0) scale = 1.0;
+        double extraX = (usable - worldW * scale) / 2.0;
+        double extraY = (usable - worldH * scale) / 2.0;
+        return new SpiralLayout(minX, minY, maxX, maxY, scale, margin + extraX, margin + extraY);
+    }
+
+    /** Pixel x of world x. */
+    public double px(double x) { return baseX + (x - minX) * scale; }
+
+    /** Pixel y of world y. */
+    public double py(double y) { return baseY + (maxY - y) * scale; }
+
+    /** Pixels per world unit. */
+    public double scale() { return scale; }
+}
@@ -0,0 +1,50 @@
+package com.mathassistant;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * SvgCurveRenderer
+ *
+ * image/svg+xml in the requested SvgProfile. The standard document is always 700px; size
+ * only matters for level-of-detail sampling, so without lod it stays out of the cache key
+ * and every size shares the /api/fibonacci entry.
+ */
+@Component
+@Order(2)
+public class SvgCurveRenderer implements CurveRenderer {
+
+    public static final MediaType SVG_TYPE = MediaType.valueOf("image/svg+xml");
+
+    private final FibonacciCurve curve = new FibonacciCurve();
+
+    @Override
+    public String format() { return RenderCache.Key.SVG; }
+
+    @Override
+    public MediaType mediaType() { return SVG_TYPE; }
+
+    @Override
+    public int defaultSize() { return 800; }
+
+    @Override
+    public RenderCache.Key key(RenderRequest r) {
+        boolean sized = r.lod.enabled() && !r.profile.compact && r.inRange();
+        return new RenderCache.Key(RenderCache.Key.SVG, r.n, sized ? r.size : 0, false, false,
+                r.lod.qualify(r.qualify(r.profile.id())));
+    }
+
+    @Override
+    public long cost(RenderRequest r) {
+        return RenderScheduler.svgCost(r.n);
+    }
+
+    @Override
+    public byte[] render(RenderRequest r) {
+        // the compact profile draws true arcs: it needs the full-density geometry
+        SpiralGeometry g = !r.profile.compact ? r.geometry()
+                : r.inRange() ? FibonacciCurve.geometry(r.sequence, r.n, LevelOfDetail.OFF, r.size) : null;
+        return curve.generateSVGBytes(r.n, false, false, r.profile, g);
+    }
+}
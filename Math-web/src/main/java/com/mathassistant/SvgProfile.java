@@ -0,0 +1,47 @@
+package com.mathassistant;
+
+/**
+ * SvgProfile
+ *
+ * Output profile for the SVG writer:
+ *  - STANDARD  sampled polylines with absolute 3-decimal coordinates (the original document)
+ *  - compact   one path of native relative arc commands ("a r r 0 0 0 dx dy") per spiral,
+ *              shared CSS classes instead of repeated style attributes, and coordinates at
+ *              the requested precision with trailing zeros stripped
+ */
+public final class SvgProfile {
+
+    public static final int DEFAULT_COMPACT_PRECISION = 1;
+    public static final int MAX_PRECISION = 3;
+
+    public static final SvgProfile STANDARD = new SvgProfile(false, 3);
+
+    final boolean compact;
+    final int precision;
+
+    private SvgProfile(boolean compact, int precision) {
+        this.compact = compact;
+        this.precision = precision;
+    }
+
+    /** Compact profile with the given number of fraction digits (clamped to 0..MAX_PRECISION). */
+    public static SvgProfile compact(int precision) {
+        return new SvgProfile(true, Math.max(0, Math.min(precision, MAX_PRECISION)));
+    }
+
+    /**
+     * Parse the ?profile= and ?precision= request parameters. Unknown profile names fall
+     * back to STANDARD; precision only applies to the compact profile.
+     */
+    public static SvgProfile parse(String name, Integer precision) {
+        if (!"compact".equalsIgnoreCase(name)) return STANDARD;
+        return compact(precision != null ? precision : DEFAULT_COMPACT_PRECISION);
+    }
+
+    public boolean isCompact() { return compact; }
+
+    /** Stable identifier used in cache keys. */
+    public String id() {
+        return compact ? "compact-p" + precision : "standard";
+    }
+}
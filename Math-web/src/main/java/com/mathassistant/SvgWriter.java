@@ -0,0 +1,136 @@
+package com.mathassistant;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SvgWriter
+ *
+ * Minimal UTF-8 text sink with a fixed-size byte buffer in front of an OutputStream.
+ * SVG markup is almost entirely ASCII, so characters are copied straight into the
+ * buffer; anything else goes through the regular UTF-8 encoder. Memory use is the
+ * buffer size, independent of the document length.
+ *
+ * The writer does not close the underlying stream; call flush() when done.
+ */
+public final class SvgWriter {
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buf;
+    private int pos;
+
+    public SvgWriter(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public SvgWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buf = new byte[Math.max(64, bufferSize)];
+    }
+
+    public SvgWriter append(String s) throws IOException {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // rare: non-ASCII text, encode the remainder properly
+                writeBytes(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            if (pos == buf.length) flushBuffer();
+            buf[pos++] = (byte) c;
+        }
+        return this;
+    }
+
+    public SvgWriter append(char c) throws IOException {
+        if (c >= 0x80) return append(String.valueOf(c));
+        if (pos == buf.length) flushBuffer();
+        buf[pos++] = (byte) c;
+        return this;
+    }
+
+    public SvgWriter append(int v) throws IOException {
+        return append((long) v);
+    }
+
+    public SvgWriter append(long v) throws IOException {
+        if (v == Long.MIN_VALUE) return append(Long.toString(v));
+        if (pos + 20 > buf.length) flushBuffer();
+        if (v < 0) {
+            buf[pos++] = '-';
+            v = -v;
+        }
+        // write digits backwards into place
+        int digits = 1;
+        for (long t = v; t >= 10; t /= 10) digits++;
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buf[i] = (byte) ('0' + (v % 10));
+            v /= 10;
+        }
+        pos = end;
+        return this;
+    }
+
+    /** Append v with a fixed number of fraction digits (locale-independent, see FixedPointFormat). */
+    public SvgWriter appendFixed(double v, int digits) throws IOException {
+        if (buf.length - pos < FixedPointFormat.MAX_FAST_LENGTH) flushBuffer();
+        int end = FixedPointFormat.write(buf, pos, v, digits);
+        if (end < 0) return append(FixedPointFormat.format(v, digits)); // slow-path value longer than the space left
+        pos = end;
+        return this;
+    }
+
+    /**
+     * Append value / 10^digits in the shortest form: trailing fraction zeros, a bare
+     * trailing '.', and the leading zero of |x| < 1 are dropped ("0.50" -> ".5", "2.0" -> "2").
+     */
+    public SvgWriter appendScaled(long value, int digits) throws IOException {
+        if (digits == 0 || value == 0) return append(value);
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        long pow = 1;
+        for (int i = 0; i < digits; i++) pow *= 10;
+        long ip = value / pow, fp = value % pow;
+        if (ip != 0) append(ip);
+        if (fp != 0) {
+            append('.');
+            // leading zeros of the fraction, then the fraction without trailing zeros
+            for (long p = pow / 10; p > fp; p /= 10) append('0');
+            while (fp % 10 == 0) fp /= 10;
+            append(fp);
+        }
+        return this;
+    }
+
+    /** Flush buffered bytes to the underlying stream (and flush the stream). */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buf.length - pos) {
+            flushBuffer();
+            if (bytes.length > buf.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mathassistant;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * WarmupHealthIndicator
+ *
+ * "warmup" health contributor: OUT_OF_SERVICE while WarmupService is pending or running,
+ * UP once it has finished (failures included, with the error as a detail). Included in
+ * the readiness group, see management.endpoint.health.group.readiness.include.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupService warmup;
+
+    public WarmupHealthIndicator(WarmupService warmup) {
+        this.warmup = warmup;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmup.finished() ? Health.up() : Health.outOfService();
+        builder.withDetail("state", warmup.state());
+        if (warmup.finished()) builder.withDetail("durationMs", warmup.durationMillis());
+        if (warmup.failure() != null) builder.withDetail("error", warmup.failure());
+        return builder.build();
+    }
+}
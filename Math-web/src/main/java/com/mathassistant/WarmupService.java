@@ -0,0 +1,190 @@
+package com.mathassistant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * WarmupService
+ *
+ * Background warm-up once the application is ready, so the first real requests don't pay
+ * for cold JIT, an empty render cache and lazily loaded classes:
+ *  1. in-process loops over the render (SVG standard/compact, PNG), calculate, batch and
+ *     expression paths, warmup.iterations times, to get them compiled
+ *  2. loopback HTTP requests for every warmup.n x warmup.sizes combination, which prefill
+ *     the render cache with exactly the entries the controllers look up, and for the pages
+ *     and JSON endpoints, which loads templates, message converters and encoders
+ *
+ * WarmupHealthIndicator reports OUT_OF_SERVICE until this finishes; it is part of the
+ * readiness group, so the load balancer only routes to warm instances. A warm-up request
+ * fails on an error status and also when it raised an error that was answered with a page
+ * (GlobalExceptionHandler renders 200), which RenderMetrics.errorCount() gives away. A
+ * failed warm-up is logged and still ends the phase: a cold instance beats one that is
+ * never ready.
+ */
+@Component
+@Lazy(false)
+public class WarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmupService.class);
+
+    public enum State { PENDING, RUNNING, DONE, FAILED, DISABLED }
+
+    private final boolean enabled;
+    private final int iterations;
+    private final List<Integer> ns;
+    private final List<Integer> sizes;
+    private final Environment environment;
+    private final RenderMetrics metrics;
+
+    private volatile State state;
+    private volatile long durationMillis;
+    private volatile String failure;
+
+    public WarmupService(@Value("${warmup.enabled:true}") boolean enabled,
+                         @Value("${warmup.iterations:200}") int iterations,
+                         @Value("${warmup.n:6,8,10,12,20,40}") List<Integer> ns,
+                         @Value("${warmup.sizes:600,800}") List<Integer> sizes,
+                         Environment environment, RenderMetrics metrics) {
+        this.enabled = enabled;
+        this.iterations = Math.max(0, iterations);
+        this.ns = ns;
+        this.sizes = sizes;
+        this.environment = environment;
+        this.metrics = metrics;
+        this.state = enabled ? State.PENDING : State.DISABLED;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Warm-up disabled");
+            return;
+        }
+        Thread t = new Thread(this::run, "warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.NORM_PRIORITY - 1);
+        t.start();
+    }
+
+    public State state() { return state; }
+
+    /** True once warm-up has ended one way or the other (or is disabled). */
+    public boolean finished() {
+        State s = state;
+        return s == State.DONE || s == State.FAILED || s == State.DISABLED;
+    }
+
+    public long durationMillis() { return durationMillis; }
+
+    public String failure() { return failure; }
+
+    private void run() {
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        try {
+            exerciseInProcess();
+            prefillOverHttp(environment.getProperty("local.server.port", Integer.class, 0));
+            state = State.DONE;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            failure = e.toString();
+            state = State.FAILED;
+            logger.warn("Warm-up failed, serving cold: {}", e.toString());
+        } finally {
+            durationMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Warm-up {} in {} ms", state, durationMillis);
+        }
+    }
+
+    // -----------------------
+    // Hot paths, in process
+    // -----------------------
+    private void exerciseInProcess() {
+        FibonacciCurve curve = new FibonacciCurve();
+        SvgProfile compact = SvgProfile.compact(SvgProfile.DEFAULT_COMPACT_PRECISION);
+        LevelOfDetail lod = LevelOfDetail.of(LevelOfDetail.DEFAULT_TOLERANCE);
+        double[] a = new double[1024], b = new double[1024];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i * 1.5;
+            b[i] = (i % 7) - 3;
+        }
+        Expression expr = Expression.compile("2*(a+b)^3 / sin(x) + sqrt(abs(a))");
+        double[] slots = {1, 2, 0.5};
+
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            int n = ns.isEmpty() ? 8 : ns.get(i % ns.size());
+            sink += curve.generateSVGBytes(n, false, false).length;
+            sink += curve.generateSVGBytes(n, false, false, compact).length;
+            sink += curve.generateSVGBytes(n, false, false, SvgProfile.STANDARD, lod, 800).length;
+            // PNG encoding is the costliest path: a small canvas compiles the same code
+            if (i % 4 == 0) sink += curve.generatePng(n, 200).length;
+            sink += (long) MathAssistantWebApplication.apply(a[i % a.length], b[i % b.length], "mul");
+            sink += (long) BatchCalculator.apply(a, b, BatchCalculator.DIV)[i % a.length];
+            slots[0] = i;
+            sink += (long) expr.evaluate(slots);
+        }
+        logger.debug("Warm-up loops done ({})", sink);
+    }
+
+    // -----------------------
+    // Cache prefill and MVC stack, over loopback HTTP
+    // -----------------------
+    private void prefillOverHttp(int port) throws Exception {
+        if (port <= 0) {
+            logger.info("Warm-up: server port unknown, skipping HTTP prefill");
+            return;
+        }
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        String base = "http://localhost:" + port;
+
+        get(http, base + "/", "text/html");
+        get(http, base + "/fibonacci-page", "text/html");
+        post(http, base + "/calculate?a=6&b=7&op=mul", "application/x-www-form-urlencoded", "");
+        post(http, base + "/calculate/batch", "application/json", "{\"a\":[1,2],\"b\":[3,0],\"ops\":[\"add\",\"div\"]}");
+        post(http, base + "/calculate/expr", "application/json", "{\"expression\":\"2*a+1\",\"variables\":{\"a\":1}}");
+
+        for (int n : ns) {
+            get(http, base + "/api/fibonacci?n=" + n, "image/svg+xml");
+            for (int size : sizes) {
+                get(http, base + "/fibonacci?n=" + n + "&size=" + size, "image/svg+xml");
+                get(http, base + "/fibonacci?n=" + n + "&size=" + size, "image/png");
+            }
+        }
+    }
+
+    private void get(HttpClient http, String url, String accept) throws Exception {
+        send(http, HttpRequest.newBuilder(URI.create(url)).header("Accept", accept).GET());
+    }
+
+    private void post(HttpClient http, String url, String type, String body) throws Exception {
+        send(http, HttpRequest.newBuilder(URI.create(url)).header("Content-Type", type)
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private void send(HttpClient http, HttpRequest.Builder request) throws Exception {
+        double errors = metrics.errorCount();
+        HttpResponse<Void> response = http.send(request.header("Accept-Encoding", "gzip")
+                .timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException(response.request().uri() + " answered " + response.statusCode());
+        }
+        if (metrics.errorCount() > errors) {
+            throw new IllegalStateException(response.request().uri() + " raised an error (see log)");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.calculator;
+
+import com.mathassistant.FibonacciNumbers;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * FibonacciCalculatorTest
+ *
+ * calculateFibonacci returns exact radii and finite coordinates for every n it accepts;
+ * n past the last term that fits a double is clamped to MAX_N.
+ */
+class FibonacciCalculatorTest {
+
+    @Test
+    void largestSpiralHasFiniteGeometry() {
+        List<FibonacciCalculator.QuadrantArc> arcs = FibonacciCalculator.calculateFibonacci(FibonacciCalculator.MAX_N);
+        assertEquals(FibonacciCalculator.MAX_N, arcs.size());
+        assertEquals(BigInteger.ONE, arcs.get(0).radius);
+        assertEquals(FibonacciNumbers.shared().get(FibonacciCalculator.MAX_N), arcs.get(arcs.size() - 1).radius);
+        assertFinite(arcs);
+    }
+
+    @Test
+    void clampsPastTheLastFiniteRadius() {
+        // F(MAX_N + 1) is the first term a double cannot hold
+        assertTrue(Double.isInfinite(FibonacciNumbers.shared().get(FibonacciCalculator.MAX_N + 1).doubleValue()));
+        for (int n : new int[] { FibonacciCalculator.MAX_N + 1, FibonacciNumbers.MAX_RANGE + 5, 1_000_000 }) {
+            List<FibonacciCalculator.QuadrantArc> arcs = FibonacciCalculator.calculateFibonacci(n);
+            assertEquals(FibonacciCalculator.MAX_N, arcs.size());
+            assertFinite(arcs);
+        }
+    }
+
+    private static void assertFinite(List<FibonacciCalculator.QuadrantArc> arcs) {
+        for (int i = 0; i < arcs.size(); i++) {
+            FibonacciCalculator.QuadrantArc arc = arcs.get(i);
+            assertEquals(arc.X.length, arc.Y.length);
+            for (int j = 0; j < arc.X.length; j++) {
+                int a = i, p = j;
+                assertTrue(Double.isFinite(arc.X[j]) && Double.isFinite(arc.Y[j]), () -> "arc " + a + " point " + p);
+            }
+        }
+    }
+
+    @Test
+    void smallSpiral() {
+        List<FibonacciCalculator.QuadrantArc> arcs = FibonacciCalculator.calculateFibonacci(6);
+        long[] expected = { 1, 1, 2, 3, 5, 8 };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(BigInteger.valueOf(expected[i]), arcs.get(i).radius);
+        }
+        assertEquals(0, FibonacciCalculator.calculateFibonacci(-3).size());
+    }
+}
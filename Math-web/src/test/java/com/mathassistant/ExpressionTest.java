@@ -0,0 +1,124 @@
+package com.mathassistant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ExpressionTest
+ *
+ * Grammar of Expression (precedence, associativity, unary minus), variable slots, error
+ * reporting on malformed input, and the compiled-expression cache.
+ */
+class ExpressionTest {
+
+    private static double eval(String text) {
+        return Expression.compile(text).evaluate(new double[0]);
+    }
+
+    @Test
+    void precedence() {
+        assertEquals(7, eval("1 + 2 * 3"));
+        assertEquals(9, eval("(1 + 2) * 3"));
+        assertEquals(5, eval("10 - 2 - 3"));          // left associative
+        assertEquals(2, eval("12 / 3 / 2"));
+        assertEquals(1, eval("7 % 3 * 1"));
+        assertEquals(19, eval("1 + 2 * 3 ^ 2"));
+        assertEquals(0.5, eval("2 ^ -1"));
+    }
+
+    @Test
+    void powerIsRightAssociative() {
+        assertEquals(512, eval("2 ^ 3 ^ 2"));        // 2^(3^2), not (2^3)^2 = 64
+        assertEquals(64, eval("(2 ^ 3) ^ 2"));
+    }
+
+    @Test
+    void unaryMinus() {
+        assertEquals(-4, eval("-2 ^ 2"));            // -(2^2)
+        assertEquals(4, eval("(-2) ^ 2"));
+        assertEquals(3, eval("--3"));
+        assertEquals(-1, eval("2 * -3 + 5"));
+        assertEquals(1, eval("+1"));
+        Expression e = Expression.compile("-x ^ 2");
+        assertEquals(-9, e.evaluate(new double[] { 3 }));
+    }
+
+    @Test
+    void numbersFunctionsAndConstants() {
+        assertEquals(1500, eval("1.5e3"));
+        assertEquals(0.25, eval(".25"));
+        assertEquals(Math.PI, eval("pi"));
+        assertEquals(Math.E, eval("E"));
+        assertEquals(5, eval("hypot(3, 4)"));
+        assertEquals(2, eval("max(min(2, 3), 1)"));
+        assertEquals(3, eval("log10(1000)"));
+        assertEquals(2, eval("round(2.5)"));          // rint: ties to even
+        assertTrue(Double.isNaN(eval("1 / 0")));      // as in /calculate
+    }
+
+    @Test
+    void variablesBindToSlotsInOrderOfAppearance() {
+        Expression e = Expression.compile("y * 10 + x - y");
+        assertEquals(List.of("y", "x"), e.variables());
+        assertEquals(21, e.evaluate(new double[] { 2, 3 }));
+        assertEquals(21, e.evaluate(Map.of("x", 3.0, "y", 2.0)));
+        assertArrayEquals(new double[] { 21, 40 },
+                e.evaluateRows(new double[][] { { 3, 2 }, { 4, 4 } }, e.columnIndex(List.of("x", "y"))));
+        assertThrows(IllegalArgumentException.class, () -> e.evaluate(Map.of("x", 1.0)));
+        assertThrows(IllegalArgumentException.class, () -> e.evaluate(new double[] { 1 }));
+    }
+
+    @Test
+    void malformedInputReportsPosition() {
+        assertError("", "empty");
+        assertError("1 +", "Unexpected end of expression");
+        assertError("(1 + 2", "Expected ')' at position 6");
+        assertError("1 + 2)", "Unexpected ')' at position 5");
+        assertError("2 $ 3", "Unexpected '$' at position 2");
+        assertError("1..2", "Invalid number at position 0");
+        assertError("1e", "Unexpected 'e' at position 1");
+        assertError("foo(1)", "Unknown function foo/1");
+        assertError("sin(1, 2)", "Unknown function sin/2");
+        assertError("-".repeat(500) + "1", "nested too deeply");
+        assertError("1+".repeat(Expression.MAX_LENGTH) + "1", "too long");
+    }
+
+    private static void assertError(String text, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Expression.compile(text));
+        assertTrue(e.getMessage().contains(message), () -> "'" + e.getMessage() + "' should contain '" + message + "'");
+    }
+
+    @Test
+    void cacheReturnsCompiledExpressionOnHit() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExpressionCache cache = new ExpressionCache(2, new RenderMetrics(registry));
+        Expression first = cache.get("x + 1");
+        assertSame(first, cache.get("x + 1"));
+        assertEquals(1, registry.counter("calculator.expression.cache", "result", "hit").count());
+        assertEquals(1, registry.counter("calculator.expression.cache", "result", "miss").count());
+
+        // LRU: touching "x + 1" keeps it while "y" is evicted by the third text
+        cache.get("y");
+        cache.get("x + 1");
+        cache.get("z");
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("x + 1"));
+        assertEquals(3, registry.counter("calculator.expression.cache", "result", "hit").count());
+
+        // failures are not cached
+        assertThrows(IllegalArgumentException.class, () -> cache.get("1 +"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("1 +"));
+        assertEquals(2, cache.size());
+        assertNotSame(first, new ExpressionCache(2, new RenderMetrics(registry)).get("x + 1"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.mathassistant;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * FixedPointFormatTest
+ *
+ * FixedPointFormat must match String.format(Locale.ROOT, "%.Nf", v) exactly, through
+ * format(), append() and write().
+ */
+class FixedPointFormatTest {
+
+    private static void assertSameAsFormatter(double v) {
+        for (int digits = 0; digits <= FixedPointFormat.MAX_DIGITS; digits++) {
+            String expected = String.format(Locale.ROOT, "%." + digits + "f", v);
+            assertEquals(expected, FixedPointFormat.format(v, digits), "format(" + v + ", " + digits + ")");
+            assertEquals(expected, FixedPointFormat.append(new StringBuilder(), v, digits).toString(),
+                    "append(" + v + ", " + digits + ")");
+            byte[] buf = new byte[expected.length() + FixedPointFormat.MAX_FAST_LENGTH];
+            int end = FixedPointFormat.write(buf, 0, v, digits);
+            assertEquals(expected, new String(buf, 0, end, StandardCharsets.US_ASCII),
+                    "write(" + v + ", " + digits + ")");
+        }
+    }
+
+    @Test
+    void ties() {
+        for (double v : new double[] { 0.5, 1.5, 2.5, -0.5, -2.5, 0.05, 0.15, 0.25, 0.35, 1.005, 2.675,
+                1.0005, 0.125, 0.375, -0.125, 9.9995, 99.995, 0.45, 1234.5 }) {
+            assertSameAsFormatter(v);
+        }
+    }
+
+    @Test
+    void negativeZero() {
+        assertSameAsFormatter(-0.0);
+        assertSameAsFormatter(0.0);
+        assertSameAsFormatter(-0.0001);
+        assertSameAsFormatter(-1e-12);
+        assertEquals("-0.00", FixedPointFormat.format(-0.001, 2));
+    }
+
+    @Test
+    void valuesAboveFastPathLimit() {
+        for (double v : new double[] { 999_999_999.5, 1e9, 1e9 + 0.5, -1e9, 1.2345678901e10, 123456789.123,
+                4.5e15, 9.007199254740993e15, 1e20, -3.3e21, Double.MAX_VALUE, Double.MIN_VALUE }) {
+            assertSameAsFormatter(v);
+        }
+    }
+
+    @Test
+    void nonFiniteValues() {
+        assertSameAsFormatter(Double.NaN);
+        assertSameAsFormatter(Double.POSITIVE_INFINITY);
+        assertSameAsFormatter(Double.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    void randomGeometryValues() {
+        SplittableRandom rnd = new SplittableRandom(42);
+        for (int i = 0; i < 20_000; i++) {
+            double v = (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(-3, 12));
+            assertSameAsFormatter(v);
+        }
+        // short decimals sit exactly on or next to ties
+        for (int i = 0; i < 20_000; i++) {
+            assertSameAsFormatter(rnd.nextInt(-1_000_000, 1_000_000) / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.mathassistant;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LinearRecurrenceTest
+ *
+ * Spiral radii, the long-only modular arithmetic (checked against BigInteger), the
+ * exact-term size bound and limits, and cycle detection (checked against known Pisano
+ * periods).
+ */
+class LinearRecurrenceTest {
+
+    @Test
+    void radiiOfNamedSequences() {
+        assertArrayEquals(new double[] { 1, 1, 2, 3, 5, 8 }, LinearRecurrence.FIBONACCI.radii(6));
+        assertArrayEquals(new double[] { 1, 3, 4, 7, 11 }, LinearRecurrence.LUCAS.radii(5));
+        assertArrayEquals(new double[] { 1, 2, 5, 12 }, LinearRecurrence.parse("2,1;0,1").radii(4));
+    }
+
+    @Test
+    void radiiRejectNegativeTerms() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> LinearRecurrence.parse("-1,1;1,1").radii(10));
+        assertTrue(e.getMessage().contains("negative"), e.getMessage());
+    }
+
+    @Test
+    void radiiRejectTermsBeyondDoubleRange() {
+        // a(n) grows ~9e18 per step: past Double.MAX_VALUE around index 18
+        LinearRecurrence r = LinearRecurrence.parse("9000000000000000000,1;1,1");
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> r.radii(FibonacciCurve.MAX_N));
+        assertTrue(e.getMessage().contains("overflows a double at index 18"), e.getMessage());
+        for (double radius : r.radii(17)) assertTrue(Double.isFinite(radius));
+    }
+
+    @Test
+    void mulModMatchesBigIntegerNearTheTopOfTheRange() {
+        SplittableRandom rnd = new SplittableRandom(7);
+        long[] moduli = { (1L << 62) - 57, (1L << 62) + 135, Long.MAX_VALUE, Long.MAX_VALUE - 24, 3037000499L, 3037000501L };
+        for (long m : moduli) {
+            BigInteger bm = BigInteger.valueOf(m);
+            long[] edges = { 0, 1, 2, m / 2, m - 2, m - 1 };
+            for (long a : edges) {
+                for (long b : edges) assertMulMod(a, b, m, bm);
+            }
+            for (int i = 0; i < 10_000; i++) assertMulMod(rnd.nextLong(m), rnd.nextLong(m), m, bm);
+        }
+    }
+
+    private static void assertMulMod(long a, long b, long m, BigInteger bm) {
+        long expected = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).mod(bm).longValueExact();
+        assertEquals(expected, LinearRecurrence.mulMod(a, b, m), () -> a + " * " + b + " mod " + m);
+        long sum = BigInteger.valueOf(a).add(BigInteger.valueOf(b)).mod(bm).longValueExact();
+        assertEquals(sum, LinearRecurrence.addMod(a, b, m), () -> a + " + " + b + " mod " + m);
+    }
+
+    @Test
+    void modMatchesExactTerms() {
+        long m = (1L << 62) - 57;
+        BigInteger bm = BigInteger.valueOf(m);
+        for (LinearRecurrence r : new LinearRecurrence[] { LinearRecurrence.FIBONACCI, LinearRecurrence.PELL,
+                LinearRecurrence.TRIBONACCI, LinearRecurrence.parse("3,-1,2;5,-7,1") }) {
+            for (int n : new int[] { 0, 1, 2, 3, 10, 93, 1000, 5000 }) {
+                assertEquals(r.exact(n).mod(bm).longValueExact(), r.mod(n, m), () -> r.id() + " a(" + n + ")");
+            }
+            long[] range = r.rangeMod(990, 3000, 1_000_000_007L); // spans several fork/join chunks
+            BigInteger[] exact = r.exactRange(990, 3989);
+            for (int i = 0; i < range.length; i++) {
+                assertEquals(exact[i].mod(BigInteger.valueOf(1_000_000_007L)).longValueExact(), range[i]);
+            }
+        }
+        // F(10^18) mod 10^9 + 7, a well-known value
+        assertEquals(209_783_453L, LinearRecurrence.FIBONACCI.mod(1_000_000_000_000_000_000L, 1_000_000_007L));
+    }
+
+    @Test
+    void exactBitsBoundTheTerms() {
+        for (String spec : new String[] { "fibonacci", "pell", "tribonacci", "padovan", "3,-1,2;5,-7,1",
+                "-2,3;-9000000000000000000,1", "0,0,1;4,5,6" }) {
+            LinearRecurrence r = LinearRecurrence.parse(spec);
+            BigInteger[] terms = r.exactRange(0, 2000);
+            for (int n = 0; n < terms.length; n++) {
+                int i = n;
+                assertTrue(terms[n].bitLength() <= r.exactBits(n), () -> r.id() + " a(" + i + ")");
+            }
+        }
+        // tight when the dominant root is positive: Pell gains log2(1 + sqrt 2) bits a step
+        assertTrue(LinearRecurrence.PELL.exactBits(20_000) - LinearRecurrence.PELL.exact(20_000).bitLength() < 8);
+    }
+
+    @Test
+    void exactRefusesRecurrencesThatOutgrowTheLimits() {
+        // order 16 with coefficients near 2^63: terms gain ~67 bits a step
+        String wide = String.join(",", Collections.nCopies(16, "9000000000000000000"));
+        LinearRecurrence r = LinearRecurrence.parse(wide + ";" + String.join(",", Collections.nCopies(16, "1")));
+        assertTrue(r.exactFits(1000, 1000));
+        assertEquals(r.exact(1000).mod(BigInteger.valueOf(1_000_000_007L)).longValueExact(), r.mod(1000, 1_000_000_007L));
+        assertFalse(r.exactFits(5000, 5000));
+        assertThrows(IllegalArgumentException.class, () -> r.exact(20_000));
+        assertThrows(IllegalArgumentException.class, () -> r.exactRange(4000, 5000));
+        // the named sequences keep their whole exact range
+        for (String name : LinearRecurrence.names()) {
+            LinearRecurrence n = LinearRecurrence.parse(name);
+            int max = LinearRecurrence.MAX_EXACT_INDEX;
+            assertTrue(n.exactFits(max - LinearRecurrence.MAX_RANGE + 1, max), name);
+        }
+    }
+
+    @Test
+    void pisanoPeriods() {
+        long[][] known = { { 1, 1 }, { 2, 3 }, { 3, 8 }, { 5, 20 }, { 10, 60 }, { 100, 300 }, { 1000, 1500 },
+                { 1_000_000, 1_500_000 } };
+        for (long[] k : known) {
+            assertArrayEquals(new long[] { 0, k[1] }, LinearRecurrence.FIBONACCI.period(k[0]), "pi(" + k[0] + ")");
+        }
+    }
+
+    @Test
+    void periodWithPreperiod() {
+        // tribonacci mod 2: 0 0 1 1 0 0 1 1 ...
+        assertArrayEquals(new long[] { 0, 4 }, LinearRecurrence.TRIBONACCI.period(2));
+        // a(n) = 2 a(n-1) from 1, mod 12: 1 2 | 4 8 4 8 ...
+        assertArrayEquals(new long[] { 2, 2 }, LinearRecurrence.parse("2;1").period(12));
+        // a(n) = 2 a(n-1) from 1, mod 2^10: reaches 0 after 10 terms and stays there
+        assertArrayEquals(new long[] { 10, 1 }, LinearRecurrence.parse("2;1").period(1024));
+    }
+
+    @Test
+    void periodGivesUpOnHugeCycles() {
+        // pi(10^9 + 7) divides 2 (10^9 + 8), far beyond MAX_PERIOD_STEPS
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> LinearRecurrence.FIBONACCI.period(1_000_000_007L));
+        assertTrue(e.getMessage().contains("longer than"), e.getMessage());
+    }
+}
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Startup benchmark: time from JVM launch to the first successful GET /api/fibonacci.
+#
+# Usage: scripts/startup-benchmark.sh [runs]       (default 5 runs per mode)
+#
+# Builds the fast-start jar, extracts it for AppCDS, trains a CDS archive and then
+# measures three modes:
+#   default    plain jar, no AOT, eager beans
+#   faststart  Spring AOT + lazy initialization (faststart profile)
+#   cds        faststart plus the AppCDS archive, as started by the Dockerfile
+# Prints min / median / max in milliseconds per mode.
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${BENCH_PORT:-18123}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK=$(mktemp -d)
+trap 'kill $(jobs -p) 2>/dev/null || true; rm -rf "$WORK"' EXIT
+
+# the pom expects sources in ./src (as in the Docker build)
+mkdir -p "$WORK/build"
+cp "$ROOT/pom.xml" "$WORK/build/"
+ln -s "$ROOT/Math-web/src" "$WORK/build/src"
+(cd "$WORK/build" && mvn -B -q -Pfast-start -DskipTests package >/dev/null)
+JAR=$(ls "$WORK"/build/target/*.jar | head -1)
+
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK/app" >/dev/null
+APP=$(ls "$WORK"/app/*.jar | head -1)
+FAST="-Dspring.aot.enabled=true -Dspring.profiles.active=faststart"
+PORT=$PORT java -XX:ArchiveClassesAtExit="$WORK/app/app.jsa" $FAST -Dspring.context.exit=onRefresh \
+    -jar "$APP" >/dev/null 2>&1
+
+now_ms() { date +%s%3N; }
+
+# one run: launch, poll every 10 ms until the endpoint answers 200, then stop the JVM
+measure() {
+    local start end pid
+    start=$(now_ms)
+    PORT=$PORT java "$@" >/dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/fibonacci?n=8"; do sleep 0.01; done
+    end=$(now_ms)
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo $((end - start))
+}
+
+report() {
+    local mode=$1; shift
+    local samples=()
+    for _ in $(seq "$RUNS"); do samples+=("$(measure "$@")"); done
+    printf '%s\n' "${samples[@]}" | sort -n | awk -v m="$mode" '
+        { v[NR] = $1 }
+        END { printf "%-10s min %6d ms   median %6d ms   max %6d ms   (%d runs)\n", m, v[1], v[int((NR + 1) / 2)], v[NR], NR }'
+}
+
+report default   -jar "$JAR"
+report faststart $FAST -jar "$APP"
+report cds       -XX:SharedArchiveFile="$WORK/app/app.jsa" $FAST -jar "$APP"